@@ -0,0 +1,122 @@
+package io.github.amerebagatelle.fabricskyboxes;
+
+import io.github.amerebagatelle.fabricskyboxes.api.skyboxes.Skybox;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Priority ordered set of active skyboxes.
+ * <p>
+ * The set is only modified when a skybox becomes active or inactive. Membership is
+ * tracked on the {@link SkyboxEntry} itself and insertion uses a binary search on
+ * (priority, registration order), so the order is always stable and no sorting is
+ * required when rendering.
+ */
+final class ActiveSkyboxSet {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private SkyboxEntry[] entries = new SkyboxEntry[INITIAL_CAPACITY];
+    private Skybox[] skyboxes = new Skybox[INITIAL_CAPACITY];
+    private int size;
+
+    private final List<Skybox> view = new View();
+
+    /**
+     * Adds the entry at its ordered position, does nothing if it is already present.
+     */
+    void add(SkyboxEntry entry) {
+        if (entry.active) {
+            return;
+        }
+        int index = -(this.search(entry) + 1);
+        if (this.size == this.entries.length) {
+            int capacity = this.entries.length * 2;
+            this.entries = Arrays.copyOf(this.entries, capacity);
+            this.skyboxes = Arrays.copyOf(this.skyboxes, capacity);
+        }
+        System.arraycopy(this.entries, index, this.entries, index + 1, this.size - index);
+        System.arraycopy(this.skyboxes, index, this.skyboxes, index + 1, this.size - index);
+        this.entries[index] = entry;
+        this.skyboxes[index] = entry.skybox;
+        this.size++;
+        entry.active = true;
+    }
+
+    /**
+     * Removes the entry, does nothing if it is not present.
+     */
+    void remove(SkyboxEntry entry) {
+        if (!entry.active) {
+            return;
+        }
+        int index = this.search(entry);
+        int moved = this.size - index - 1;
+        System.arraycopy(this.entries, index + 1, this.entries, index, moved);
+        System.arraycopy(this.skyboxes, index + 1, this.skyboxes, index, moved);
+        this.size--;
+        this.entries[this.size] = null;
+        this.skyboxes[this.size] = null;
+        entry.active = false;
+    }
+
+    void clear() {
+        for (int i = 0; i < this.size; i++) {
+            this.entries[i].active = false;
+        }
+        Arrays.fill(this.entries, 0, this.size, null);
+        Arrays.fill(this.skyboxes, 0, this.size, null);
+        this.size = 0;
+    }
+
+    /**
+     * @return The backing array of active skyboxes, only the first {@link #size()} elements are valid.
+     */
+    Skybox[] array() {
+        return this.skyboxes;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * @return A read-only live view of the active skyboxes.
+     */
+    List<Skybox> asList() {
+        return this.view;
+    }
+
+    private int search(SkyboxEntry entry) {
+        int low = 0;
+        int high = this.size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int result = this.entries[mid].compareTo(entry);
+            if (result < 0) {
+                low = mid + 1;
+            } else if (result > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private final class View extends AbstractList<Skybox> implements RandomAccess {
+        @Override
+        public Skybox get(int index) {
+            Objects.checkIndex(index, ActiveSkyboxSet.this.size);
+            return ActiveSkyboxSet.this.skyboxes[index];
+        }
+
+        @Override
+        public int size() {
+            return ActiveSkyboxSet.this.size;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package io.github.amerebagatelle.fabricskyboxes;
+
+import io.github.amerebagatelle.fabricskyboxes.skyboxes.AbstractSkybox;
+import io.github.amerebagatelle.fabricskyboxes.util.object.Conditions;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import net.minecraft.util.Identifier;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Partitions skyboxes by the dimensions they can be shown in.
+ * <p>
+ * Skyboxes restricted by {@link Conditions#getDimensions()} are bucketed by dimension id,
+ * skyboxes only restricted by {@link Conditions#getWorlds()} are bucketed by dimension effects id
+ * and everything else ends up in the wildcard bucket.
+ */
+final class DimensionIndex {
+    private final Map<Identifier, List<SkyboxEntry>> dimensionBuckets = new Object2ObjectOpenHashMap<>();
+    private final Map<Identifier, List<SkyboxEntry>> worldBuckets = new Object2ObjectOpenHashMap<>();
+    private final List<SkyboxEntry> wildcard = new ObjectArrayList<>();
+
+    void rebuild(List<SkyboxEntry> entries) {
+        this.dimensionBuckets.clear();
+        this.worldBuckets.clear();
+        this.wildcard.clear();
+        for (SkyboxEntry entry : entries) {
+            if (!(entry.skybox instanceof AbstractSkybox skybox) || skybox.getProperties().getMinAlpha() > 0F) {
+                // Skyboxes with a minimum alpha stay visible when their conditions fail, so they are always candidates
+                this.wildcard.add(entry);
+                continue;
+            }
+            Conditions conditions = skybox.getConditions();
+            if (!conditions.getDimensions().isEmpty()) {
+                addToBuckets(this.dimensionBuckets, conditions.getDimensions(), entry);
+            } else if (!conditions.getWorlds().isEmpty()) {
+                addToBuckets(this.worldBuckets, conditions.getWorlds(), entry);
+            } else {
+                this.wildcard.add(entry);
+            }
+        }
+    }
+
+    /**
+     * Collects every skybox that can be shown in the given dimension, in registration order.
+     *
+     * @param dimension        The dimension id
+     * @param dimensionEffects The dimension effects id
+     * @return The candidate skyboxes
+     */
+    List<SkyboxEntry> getCandidates(Identifier dimension, Identifier dimensionEffects) {
+        List<SkyboxEntry> candidates = new ObjectArrayList<>(this.wildcard);
+        candidates.addAll(this.dimensionBuckets.getOrDefault(dimension, List.of()));
+        candidates.addAll(this.worldBuckets.getOrDefault(dimensionEffects, List.of()));
+        candidates.sort(Comparator.comparingInt(entry -> entry.order));
+        return candidates;
+    }
+
+    private static void addToBuckets(Map<Identifier, List<SkyboxEntry>> buckets, List<Identifier> keys, SkyboxEntry entry) {
+        for (Identifier key : keys) {
+            List<SkyboxEntry> bucket = buckets.computeIfAbsent(key, k -> new ObjectArrayList<>());
+            // Guard against the same id being listed twice
+            if (bucket.isEmpty() || bucket.get(bucket.size() - 1) != entry) {
+                bucket.add(entry);
+            }
+        }
+    }
+}
@@ -4,6 +4,7 @@ import io.github.amerebagatelle.fabricskyboxes.config.FabricSkyBoxesConfig;
 import io.github.amerebagatelle.fabricskyboxes.config.SkyBoxDebugScreen;
 import io.github.amerebagatelle.fabricskyboxes.resource.SkyboxResourceListener;
 import io.github.amerebagatelle.fabricskyboxes.skyboxes.SkyboxType;
+import io.github.amerebagatelle.fabricskyboxes.util.SkyboxShaders;
 import net.fabricmc.api.ClientModInitializer;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
@@ -44,8 +45,10 @@ public class FabricSkyBoxesClient implements ClientModInitializer {
     @Override
     public void onInitializeClient() {
         SkyboxType.initRegistry();
+        SkyboxShaders.register();
         ResourceManagerHelper.get(ResourceType.CLIENT_RESOURCES).registerReloadListener(new SkyboxResourceListener());
         SkyboxManager.getInstance().setEnabled(config().generalSettings.enable);
+        SkyboxManager.getInstance().setParallelEvaluation(config().generalSettings.parallelEvaluation, Math.max(1, config().generalSettings.parallelEvaluationThreshold));
         ClientTickEvents.END_WORLD_TICK.register(SkyboxManager.getInstance());
         ClientTickEvents.END_CLIENT_TICK.register(config().getKeyBinding());
 
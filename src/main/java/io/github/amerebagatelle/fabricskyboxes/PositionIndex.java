@@ -0,0 +1,168 @@
+package io.github.amerebagatelle.fabricskyboxes;
+
+import io.github.amerebagatelle.fabricskyboxes.skyboxes.AbstractSkybox;
+import io.github.amerebagatelle.fabricskyboxes.util.ConditionType;
+import io.github.amerebagatelle.fabricskyboxes.util.SkyContext;
+import io.github.amerebagatelle.fabricskyboxes.util.object.MinMaxEntry;
+import it.unimi.dsi.fastutil.floats.FloatAVLTreeSet;
+import it.unimi.dsi.fastutil.floats.FloatSortedSet;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Interval index over the x, y and z ranges of every skybox.
+ * <p>
+ * Each axis is split into slots by the sorted range boundaries. As long as the player stays
+ * within the same slot, no range check of any skybox can change its result. Once a boundary
+ * is crossed, a single stabbing query determines which skyboxes' ranges contain the new
+ * position and the results are handed to the skyboxes, so they never scan their own ranges.
+ */
+final class PositionIndex {
+    private final Axis x = new Axis(ConditionType.X_RANGES, SkyContext.POSITION_X, skybox -> skybox.getConditions().getXRanges());
+    private final Axis y = new Axis(ConditionType.Y_RANGES, SkyContext.POSITION_Y, skybox -> skybox.getConditions().getYRanges());
+    private final Axis z = new Axis(ConditionType.Z_RANGES, SkyContext.POSITION_Z, skybox -> skybox.getConditions().getZRanges());
+
+    void rebuild(List<SkyboxEntry> entries) {
+        this.x.rebuild(entries);
+        this.y.rebuild(entries);
+        this.z.rebuild(entries);
+    }
+
+    /**
+     * Moves the tracked position to the one of the given context and updates the range
+     * results of the affected skyboxes.
+     *
+     * @param context The context of the current tick
+     * @return The position change flags of every axis on which a range boundary was crossed
+     */
+    int update(SkyContext context) {
+        return this.x.update(context.getX()) | this.y.update(context.getY()) | this.z.update(context.getZ());
+    }
+
+    private static final class Axis {
+        private final ConditionType type;
+        private final int changeFlag;
+        private final Function<AbstractSkybox, List<MinMaxEntry>> ranges;
+        private final BitSet matches = new BitSet();
+        private AbstractSkybox[] skyboxes = new AbstractSkybox[0];
+        private float[] boundaries = new float[0];
+        /**
+         * Every range of the axis sorted by its minimum, with the index of the owning skybox.
+         */
+        private float[] mins = new float[0];
+        private float[] maxs = new float[0];
+        private int[] owners = new int[0];
+        private int slot = -1;
+
+        private Axis(ConditionType type, int changeFlag, Function<AbstractSkybox, List<MinMaxEntry>> ranges) {
+            this.type = type;
+            this.changeFlag = changeFlag;
+            this.ranges = ranges;
+        }
+
+        private void rebuild(List<SkyboxEntry> entries) {
+            for (AbstractSkybox skybox : this.skyboxes) {
+                skybox.setIndexed(this.type, false);
+            }
+
+            List<AbstractSkybox> skyboxes = new ObjectArrayList<>();
+            FloatSortedSet boundaries = new FloatAVLTreeSet();
+            int rangeCount = 0;
+            for (SkyboxEntry entry : entries) {
+                if (entry.skybox instanceof AbstractSkybox skybox && !this.ranges.apply(skybox).isEmpty()) {
+                    skyboxes.add(skybox);
+                    for (MinMaxEntry range : this.ranges.apply(skybox)) {
+                        boundaries.add(range.getMin());
+                        boundaries.add(range.getMax());
+                        rangeCount++;
+                    }
+                }
+            }
+
+            float[] mins = new float[rangeCount];
+            float[] maxs = new float[rangeCount];
+            int[] owners = new int[rangeCount];
+            int index = 0;
+            for (int i = 0; i < skyboxes.size(); i++) {
+                for (MinMaxEntry range : this.ranges.apply(skyboxes.get(i))) {
+                    mins[index] = range.getMin();
+                    maxs[index] = range.getMax();
+                    owners[index] = i;
+                    index++;
+                }
+            }
+            int[] order = new int[rangeCount];
+            Arrays.setAll(order, i -> i);
+            IntArrays.quickSort(order, (a, b) -> Float.compare(mins[a], mins[b]));
+            this.mins = new float[rangeCount];
+            this.maxs = new float[rangeCount];
+            this.owners = new int[rangeCount];
+            for (int i = 0; i < rangeCount; i++) {
+                this.mins[i] = mins[order[i]];
+                this.maxs[i] = maxs[order[i]];
+                this.owners[i] = owners[order[i]];
+            }
+
+            this.skyboxes = skyboxes.toArray(new AbstractSkybox[0]);
+            this.boundaries = boundaries.toFloatArray();
+            this.slot = -1;
+            this.matches.clear();
+            for (AbstractSkybox skybox : this.skyboxes) {
+                skybox.setIndexed(this.type, true);
+            }
+        }
+
+        private int update(double coordinate) {
+            // Ranges are checked against the position as a float
+            float value = (float) coordinate;
+            int slot = slot(this.boundaries, value);
+            if (slot == this.slot) {
+                return 0;
+            }
+            this.slot = slot;
+
+            // Only ranges starting at or below the value can contain it
+            this.matches.clear();
+            for (int i = 0, end = upperBound(this.mins, value); i < end; i++) {
+                if (Float.compare(value, this.maxs[i]) <= 0) {
+                    this.matches.set(this.owners[i]);
+                }
+            }
+            for (int i = 0; i < this.skyboxes.length; i++) {
+                this.skyboxes[i].setIndexedResult(this.type, this.matches.get(i));
+            }
+            return this.changeFlag;
+        }
+
+        /**
+         * Positions that share a slot compare equally against every boundary. Ranges are
+         * closed, so a position exactly on a boundary gets a slot of its own.
+         */
+        private static int slot(float[] boundaries, float value) {
+            int index = Arrays.binarySearch(boundaries, value);
+            return index >= 0 ? index * 2 + 1 : (-index - 1) * 2;
+        }
+
+        /**
+         * @return The amount of values that are less than or equal to the given value
+         */
+        private static int upperBound(float[] sorted, float value) {
+            int low = 0;
+            int high = sorted.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (Float.compare(sorted[middle], value) <= 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.amerebagatelle.fabricskyboxes;
+
+import io.github.amerebagatelle.fabricskyboxes.api.skyboxes.Skybox;
+import net.minecraft.util.Identifier;
+
+/**
+ * Bookkeeping wrapper around a registered skybox. The priority and
+ * registration order are captured once so the active set can be kept
+ * ordered without calling back into the skybox.
+ */
+final class SkyboxEntry {
+    final Identifier identifier;
+    final Skybox skybox;
+    final int priority;
+    final int order;
+
+    /**
+     * Whether this entry is currently a member of the {@link ActiveSkyboxSet}.
+     */
+    boolean active;
+
+    /**
+     * Whether this entry can be shown in the current dimension and is therefore ticked.
+     */
+    boolean candidate;
+
+    /**
+     * Whether this entry is settled and skipped until {@link #wakeTime} or until one of its {@link #dependencies} changes.
+     */
+    boolean dormant;
+    long wakeTime;
+    int dependencies;
+
+    SkyboxEntry(Identifier identifier, Skybox skybox, int order) {
+        this.identifier = identifier;
+        this.skybox = skybox;
+        this.priority = skybox.getPriority();
+        this.order = order;
+    }
+
+    /**
+     * Orders entries by ascending priority, falling back to registration order for equal priorities.
+     */
+    int compareTo(SkyboxEntry other) {
+        int result = Integer.compare(this.priority, other.priority);
+        return result != 0 ? result : Integer.compare(this.order, other.order);
+    }
+}
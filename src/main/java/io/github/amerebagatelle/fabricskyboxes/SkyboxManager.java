@@ -1,31 +1,48 @@
 package io.github.amerebagatelle.fabricskyboxes;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Iterables;
 import com.google.gson.JsonObject;
+import com.mojang.blaze3d.systems.RenderSystem;
 import com.mojang.serialization.JsonOps;
 import io.github.amerebagatelle.fabricskyboxes.api.FabricSkyBoxesApi;
 import io.github.amerebagatelle.fabricskyboxes.api.skyboxes.Skybox;
 import io.github.amerebagatelle.fabricskyboxes.mixin.skybox.WorldRendererAccess;
+import io.github.amerebagatelle.fabricskyboxes.skyboxes.AbstractSkybox;
 import io.github.amerebagatelle.fabricskyboxes.skyboxes.SkyboxType;
+import io.github.amerebagatelle.fabricskyboxes.util.AnimationClock;
+import io.github.amerebagatelle.fabricskyboxes.util.ConditionStats;
+import io.github.amerebagatelle.fabricskyboxes.util.CubeAtlas;
 import io.github.amerebagatelle.fabricskyboxes.util.JsonObjectWrapper;
+import io.github.amerebagatelle.fabricskyboxes.util.RenderQueue;
+import io.github.amerebagatelle.fabricskyboxes.util.RenderStats;
+import io.github.amerebagatelle.fabricskyboxes.util.SkyContext;
+import io.github.amerebagatelle.fabricskyboxes.util.SkyRenderState;
+import io.github.amerebagatelle.fabricskyboxes.util.SkyboxComposite;
+import io.github.amerebagatelle.fabricskyboxes.util.SkyboxGeometry;
+import io.github.amerebagatelle.fabricskyboxes.util.TextureOpacity;
 import io.github.amerebagatelle.fabricskyboxes.util.object.internal.Metadata;
 import it.unimi.dsi.fastutil.objects.Object2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.render.Camera;
 import net.minecraft.client.util.math.MatrixStack;
 import net.minecraft.client.world.ClientWorld;
+import net.minecraft.registry.DynamicRegistryManager;
 import net.minecraft.util.Identifier;
+import net.minecraft.util.Util;
 import org.jetbrains.annotations.ApiStatus.Internal;
+import org.jetbrains.annotations.Nullable;
 import org.joml.Matrix4f;
 
 import java.util.Comparator;
-import java.util.LinkedList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Predicate;
+import java.util.PriorityQueue;
+import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 public class SkyboxManager implements FabricSkyBoxesApi, ClientTickEvents.EndWorldTick {
     private static final SkyboxManager INSTANCE = new SkyboxManager();
@@ -36,10 +53,39 @@ public class SkyboxManager implements FabricSkyBoxesApi, ClientTickEvents.EndWor
      * @see #addPermanentSkybox(Identifier, Skybox)
      */
     private final Map<Identifier, Skybox> permanentSkyboxMap = new Object2ObjectLinkedOpenHashMap<>();
-    private final List<Skybox> activeSkyboxes = new LinkedList<>();
-    private final Predicate<? super Skybox> renderPredicate = (skybox) -> !this.activeSkyboxes.contains(skybox) && skybox.isActive();
+    /**
+     * Flattened view of both skybox maps in registration order, rebuilt lazily whenever either map changes.
+     */
+    private final List<SkyboxEntry> entries = new ObjectArrayList<>();
+    private final ActiveSkyboxSet activeSkyboxes = new ActiveSkyboxSet();
+    private final DimensionIndex dimensionIndex = new DimensionIndex();
+    private final PositionIndex positionIndex = new PositionIndex();
+    private final AnimationClock animationClock = new AnimationClock();
+    /**
+     * Entries that can be shown in the current dimension, only these are ticked.
+     */
+    private List<SkyboxEntry> candidates = List.of();
+    private Identifier candidateDimension = null;
+    private Identifier candidateDimensionEffects = null;
+    /**
+     * Candidates that are ticked every tick, the remaining candidates are dormant.
+     */
+    private final List<SkyboxEntry> awake = new ObjectArrayList<>();
+    /**
+     * Dormant candidates, ordered by the time they have to be ticked again.
+     */
+    private final PriorityQueue<SkyboxEntry> dormant = new PriorityQueue<>(Comparator.comparingLong(entry -> entry.wakeTime));
+    private boolean entriesDirty = true;
+    /**
+     * The registries the condition ids of the entries are resolved against, null if unresolved.
+     */
+    private DynamicRegistryManager resolvedRegistries = null;
+    private final Set<Identifier> reportedUnknownIds = new ObjectOpenHashSet<>();
     private Skybox currentSkybox = null;
+    private SkyContext skyContext = null;
     private boolean enabled = true;
+    private boolean parallelEvaluation = false;
+    private int parallelEvaluationThreshold = Integer.MAX_VALUE;
 
     public static Skybox parseSkyboxJson(Identifier id, JsonObjectWrapper objectWrapper) {
         Skybox skybox;
@@ -83,6 +129,25 @@ public class SkyboxManager implements FabricSkyBoxesApi, ClientTickEvents.EndWor
         Preconditions.checkNotNull(skybox, "Skybox was null");
         this.skyboxMap.put(identifier, skybox);
         this.sortSkybox();
+        this.entriesDirty = true;
+    }
+
+    /**
+     * Adds all skyboxes in iteration order of the given map and sorts them once
+     * afterwards, which avoids re-sorting the skybox map for every single skybox.
+     *
+     * @param skyboxes the skyboxes to be added
+     * @see #sortSkybox()
+     */
+    public void addSkyboxes(Map<Identifier, Skybox> skyboxes) {
+        Preconditions.checkNotNull(skyboxes, "Skyboxes was null");
+        for (Map.Entry<Identifier, Skybox> entry : skyboxes.entrySet()) {
+            Preconditions.checkNotNull(entry.getKey(), "Identifier was null");
+            Preconditions.checkNotNull(entry.getValue(), "Skybox was null");
+            this.skyboxMap.put(entry.getKey(), entry.getValue());
+        }
+        this.sortSkybox();
+        this.entriesDirty = true;
     }
 
     /**
@@ -116,20 +181,72 @@ public class SkyboxManager implements FabricSkyBoxesApi, ClientTickEvents.EndWor
         Preconditions.checkNotNull(identifier, "Identifier was null");
         Preconditions.checkNotNull(skybox, "Skybox was null");
         this.permanentSkyboxMap.put(identifier, skybox);
+        this.entriesDirty = true;
     }
 
     @Internal
     public void clearSkyboxes() {
         this.skyboxMap.clear();
         this.activeSkyboxes.clear();
+        ConditionStats.getInstance().reset();
+        this.reportedUnknownIds.clear();
+        this.entriesDirty = true;
+        if (!SkyboxGeometry.isEmpty() || !CubeAtlas.isEmpty() || !SkyboxComposite.getInstance().isEmpty() || !TextureOpacity.isEmpty()) {
+            // Free the buffers, atlases and composite of skyboxes that may not come back, textures may change with them
+            RenderSystem.recordRenderCall(() -> {
+                SkyboxGeometry.clear();
+                CubeAtlas.clear();
+                SkyboxComposite.getInstance().clear();
+                TextureOpacity.clear();
+            });
+        }
     }
 
     @Internal
     public void renderSkyboxes(WorldRendererAccess worldRendererAccess, MatrixStack matrixStack, Matrix4f projectionMatrix, float tickDelta, Camera camera, boolean thickFog, Runnable fogCallback) {
-        this.activeSkyboxes.forEach(skybox -> {
+        RenderStats.getInstance().beginFrame();
+        this.animationClock.advance(Util.getMeasuringTimeMs(), MinecraftClient.getInstance().isPaused());
+        RenderQueue queue = RenderQueue.getInstance();
+        SkyRenderState state = SkyRenderState.getInstance();
+        SkyboxComposite composite = SkyboxComposite.getInstance();
+        state.begin();
+        composite.beginFrame();
+        Skybox[] skyboxes = this.activeSkyboxes.array();
+        int size = this.activeSkyboxes.size();
+        // Everything below the topmost opaque skybox is hidden by it
+        int first = 0;
+        for (int i = size - 1; i > 0; i--) {
+            if (skyboxes[i] instanceof AbstractSkybox abstractSkybox && abstractSkybox.isOpaque()) {
+                first = i;
+                break;
+            }
+        }
+        RenderStats.getInstance().recordHiddenLayers(first);
+        for (int i = first; i < size; i++) {
+            Skybox skybox = skyboxes[i];
             this.currentSkybox = skybox;
-            skybox.render(worldRendererAccess, matrixStack, projectionMatrix, tickDelta, camera, thickFog, fogCallback);
-        });
+            // Static layers drawn over each other are replaced by their cached composite
+            int composited = composite.render(skyboxes, i, size, matrixStack);
+            if (composited > 0) {
+                i += composited - 1;
+                this.currentSkybox = skyboxes[i];
+                continue;
+            }
+            if (!(skybox instanceof AbstractSkybox abstractSkybox && abstractSkybox.isQueued())) {
+                // Draws outside the queue have to come after everything queued before
+                queue.flush();
+            }
+            if (skybox instanceof AbstractSkybox) {
+                skybox.render(worldRendererAccess, matrixStack, projectionMatrix, tickDelta, camera, thickFog, fogCallback);
+            } else {
+                // Skyboxes of other mods set the GL state themselves and expect the defaults
+                state.reset();
+                skybox.render(worldRendererAccess, matrixStack, projectionMatrix, tickDelta, camera, thickFog, fogCallback);
+                state.invalidate();
+            }
+        }
+        queue.flush();
+        state.end();
     }
 
     public boolean isEnabled() {
@@ -140,6 +257,18 @@ public class SkyboxManager implements FabricSkyBoxesApi, ClientTickEvents.EndWor
         this.enabled = enabled;
     }
 
+    /**
+     * Enables evaluating skybox conditions on multiple threads once the amount of ticked skyboxes reaches the threshold.
+     *
+     * @param parallelEvaluation Whether parallel evaluation is enabled
+     * @param threshold          The minimum amount of ticked skyboxes
+     */
+    public void setParallelEvaluation(boolean parallelEvaluation, int threshold) {
+        Preconditions.checkArgument(threshold > 0, "Threshold must be positive");
+        this.parallelEvaluation = parallelEvaluation;
+        this.parallelEvaluationThreshold = threshold;
+    }
+
     public Skybox getCurrentSkybox() {
         return this.currentSkybox;
     }
@@ -151,19 +280,231 @@ public class SkyboxManager implements FabricSkyBoxesApi, ClientTickEvents.EndWor
 
     @Override
     public List<Skybox> getActiveSkyboxes() {
-        return this.activeSkyboxes;
+        return this.activeSkyboxes.asList();
+    }
+
+    /**
+     * @return The clock the skybox animations follow
+     */
+    public AnimationClock getAnimationClock() {
+        return this.animationClock;
+    }
+
+    /**
+     * @return The world state captured for the latest tick, null if no tick has happened yet.
+     */
+    @Nullable
+    public SkyContext getSkyContext() {
+        return this.skyContext;
     }
 
     @Override
     public void onEndTick(ClientWorld client) {
-        StreamSupport
-                .stream(Iterables.concat(this.skyboxMap.values(), this.permanentSkyboxMap.values()).spliterator(), false)
-                .forEach(skybox -> skybox.tick(client));
-        this.activeSkyboxes.removeIf(skybox -> !skybox.isActive());
-        // Add the skyboxes to a activeSkyboxes container so that they can be ordered
-        this.skyboxMap.values().stream().filter(this.renderPredicate).forEach(this.activeSkyboxes::add);
-        this.permanentSkyboxMap.values().stream().filter(this.renderPredicate).forEach(this.activeSkyboxes::add);
-        this.activeSkyboxes.sort(Comparator.comparingInt(Skybox::getPriority));
+        if (this.entriesDirty) {
+            this.rebuildEntries();
+        }
+        if (client.getRegistryManager() != this.resolvedRegistries) {
+            this.resolveEntries(client.getRegistryManager());
+        }
+        // Capture the world state once, every skybox evaluates its conditions against this snapshot
+        SkyContext context = SkyContext.capture(MinecraftClient.getInstance());
+        if (context == null) {
+            return;
+        }
+        this.tickSkyboxes(context, client);
+    }
+
+    /**
+     * Ticks the skyboxes of the current dimension against the given context and updates the active set.
+     *
+     * @param capturedContext The world state of the current tick
+     * @param world           The client world passed to skyboxes that do not use the shared context
+     */
+    @Internal
+    public void tickSkyboxes(SkyContext capturedContext, @Nullable ClientWorld world) {
+        if (this.entriesDirty) {
+            this.rebuildEntries();
+        }
+        ConditionStats.getInstance().tick();
+        SkyContext previousContext = this.skyContext;
+        // Detect changed inputs once, position changes only count when a range boundary is crossed
+        int changes = (capturedContext.computeChanges(previousContext) & ~SkyContext.POSITION) | this.positionIndex.update(capturedContext);
+        boolean dimensionChanged = !capturedContext.getDimension().equals(this.candidateDimension) || !capturedContext.getDimensionEffects().equals(this.candidateDimensionEffects);
+        SkyContext context = capturedContext.withChanges(dimensionChanged ? SkyContext.ALL : changes);
+        this.skyContext = context;
+        if (dimensionChanged) {
+            this.swapCandidates(context.getDimension(), context.getDimensionEffects(), previousContext);
+        } else {
+            this.wakeDormant(context, previousContext);
+        }
+
+        boolean parallel = this.parallelEvaluation && this.awake.size() >= this.parallelEvaluationThreshold;
+        if (parallel) {
+            // Skyboxes only depend on the immutable context, results are merged below in the same order as sequential ticks
+            this.awake.parallelStream().forEach(entry -> {
+                if (entry.skybox instanceof AbstractSkybox skybox) {
+                    skybox.tick(context);
+                }
+            });
+        }
+
+        int awakeCount = 0;
+        for (int i = 0, size = this.awake.size(); i < size; i++) {
+            SkyboxEntry entry = this.awake.get(i);
+            if (entry.skybox instanceof AbstractSkybox skybox) {
+                if (!parallel) {
+                    skybox.tick(context);
+                }
+            } else {
+                entry.skybox.tick(world);
+            }
+            // Only touch the active set on activation or deactivation edges
+            boolean active = entry.skybox.isActive();
+            if (active != entry.active) {
+                if (active) {
+                    this.activeSkyboxes.add(entry);
+                } else {
+                    this.activeSkyboxes.remove(entry);
+                }
+            }
+
+            // Put settled skyboxes to sleep, compacting the awake list in place
+            if (entry.skybox instanceof AbstractSkybox skybox) {
+                long settledUntil = skybox.getSettledUntil(context);
+                if (settledUntil > context.getTimeOfDay()) {
+                    entry.dormant = true;
+                    entry.wakeTime = settledUntil;
+                    this.dormant.add(entry);
+                    continue;
+                }
+            }
+            this.awake.set(awakeCount++, entry);
+        }
+        this.awake.subList(awakeCount, this.awake.size()).clear();
+    }
+
+    /**
+     * Moves dormant entries back to the awake list once their wake time is reached, one of
+     * their dependencies changed or the world time did not advance by a regular tick.
+     */
+    private void wakeDormant(SkyContext context, SkyContext previousContext) {
+        if (this.dormant.isEmpty()) {
+            return;
+        }
+        long previousTime = previousContext != null ? previousContext.getTimeOfDay() : context.getTimeOfDay();
+        long time = context.getTimeOfDay();
+        boolean continuous = previousContext != null && (time == previousTime || time == previousTime + 1);
+        int changes = context.getChanges();
+
+        int awakeBefore = this.awake.size();
+        if (!continuous) {
+            this.awake.addAll(this.dormant);
+            this.dormant.clear();
+        } else {
+            while (!this.dormant.isEmpty() && this.dormant.peek().wakeTime <= time) {
+                this.awake.add(this.dormant.poll());
+            }
+            if (changes != 0) {
+                for (Iterator<SkyboxEntry> iterator = this.dormant.iterator(); iterator.hasNext(); ) {
+                    SkyboxEntry entry = iterator.next();
+                    if ((entry.dependencies & changes) != 0) {
+                        iterator.remove();
+                        this.awake.add(entry);
+                    }
+                }
+            }
+        }
+        if (this.awake.size() == awakeBefore) {
+            return;
+        }
+        for (int i = awakeBefore, size = this.awake.size(); i < size; i++) {
+            SkyboxEntry entry = this.awake.get(i);
+            entry.dormant = false;
+            ((AbstractSkybox) entry.skybox).resume(previousTime);
+        }
+        // Keep ticking in registration order
+        this.awake.sort(Comparator.comparingInt(entry -> entry.order));
+    }
+
+    /**
+     * Resolves the condition ids of every skybox against the registries of the joined world.
+     * Ids that do not exist are reported once per resource reload.
+     */
+    private void resolveEntries(DynamicRegistryManager registries) {
+        this.resolvedRegistries = registries;
+        for (SkyboxEntry entry : this.entries) {
+            if (entry.skybox instanceof AbstractSkybox skybox) {
+                for (Identifier unknownId : skybox.resolveConditions(registries)) {
+                    if (this.reportedUnknownIds.add(unknownId)) {
+                        FabricSkyBoxesClient.getLogger().warn("Unknown biome or effect {} in conditions of skybox {}", unknownId, entry.identifier);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Recreates the entry list from both skybox maps. Regular skyboxes are ordered before
+     * permanent skyboxes, the active set picks up currently active skyboxes on the next tick.
+     */
+    private void rebuildEntries() {
+        this.activeSkyboxes.clear();
+        this.entries.clear();
+        for (Map.Entry<Identifier, Skybox> entry : this.skyboxMap.entrySet()) {
+            this.entries.add(new SkyboxEntry(entry.getKey(), entry.getValue(), this.entries.size()));
+        }
+        for (Map.Entry<Identifier, Skybox> entry : this.permanentSkyboxMap.entrySet()) {
+            this.entries.add(new SkyboxEntry(entry.getKey(), entry.getValue(), this.entries.size()));
+        }
+        this.resolvedRegistries = null;
+        this.dimensionIndex.rebuild(this.entries);
+        this.positionIndex.rebuild(this.entries);
+        for (SkyboxEntry entry : this.entries) {
+            entry.dependencies = entry.skybox instanceof AbstractSkybox skybox ? skybox.getDependencies() : SkyContext.ALL;
+        }
+        this.awake.clear();
+        this.dormant.clear();
+        this.candidates = List.of();
+        this.candidateDimension = null;
+        this.candidateDimensionEffects = null;
+        this.entriesDirty = false;
+    }
+
+    /**
+     * Replaces the ticked skyboxes with the ones that can be shown in the given dimension.
+     * Skyboxes that are no longer candidates are faded out immediately and skipped from then on.
+     */
+    private void swapCandidates(Identifier dimension, Identifier dimensionEffects, @Nullable SkyContext previousContext) {
+        if (previousContext != null) {
+            for (SkyboxEntry entry : this.dormant) {
+                ((AbstractSkybox) entry.skybox).resume(previousContext.getTimeOfDay());
+            }
+        }
+        List<SkyboxEntry> previous = this.candidates;
+        this.candidates = this.dimensionIndex.getCandidates(dimension, dimensionEffects);
+        this.candidateDimension = dimension;
+        this.candidateDimensionEffects = dimensionEffects;
+
+        for (SkyboxEntry entry : previous) {
+            entry.candidate = false;
+        }
+        for (SkyboxEntry entry : this.candidates) {
+            entry.candidate = true;
+            entry.dormant = false;
+        }
+        // Every candidate is ticked again after a dimension change
+        this.dormant.clear();
+        this.awake.clear();
+        this.awake.addAll(this.candidates);
+        for (SkyboxEntry entry : previous) {
+            if (!entry.candidate) {
+                entry.dormant = false;
+                if (entry.skybox instanceof AbstractSkybox skybox) {
+                    skybox.resetAlpha();
+                }
+                this.activeSkyboxes.remove(entry);
+            }
+        }
     }
 
     public Map<Identifier, Skybox> getSkyboxMap() {
@@ -7,6 +7,7 @@ import io.github.amerebagatelle.fabricskyboxes.util.JsonObjectWrapper;
 import net.minecraft.util.Identifier;
 
 import java.util.List;
+import java.util.Map;
 
 public interface FabricSkyBoxesApi {
 
@@ -58,6 +59,18 @@ public interface FabricSkyBoxesApi {
      */
     void addSkybox(Identifier identifier, JsonObject jsonObject);
 
+    /**
+     * Allows mods to add many skyboxes at once at runtime. The default
+     * implementation calls {@link #addSkybox(Identifier, Skybox)} for each of
+     * them, FabricSkyBoxes itself only sorts the skyboxes once after all of
+     * them have been added, which is considerably faster.
+     *
+     * @param skyboxes Skybox implementations by identifier, added in iteration order.
+     */
+    default void addSkyboxes(Map<Identifier, Skybox> skyboxes) {
+        skyboxes.forEach(this::addSkybox);
+    }
+
     /**
      * Allows mods to add new permanent skyboxes at runtime.
      *
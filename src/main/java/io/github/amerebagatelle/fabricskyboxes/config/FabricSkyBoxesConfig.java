@@ -71,6 +71,10 @@ public class FabricSkyBoxesConfig {
         public boolean enable = true;
         public int unexpectedTransitionDuration = 20;
         public boolean keepVanillaBehaviour = true;
+        public boolean parallelEvaluation = false;
+        public int parallelEvaluationThreshold = 2048;
+        public boolean stitchTextures = true;
+        public boolean compositeLayers = true;
 
         public boolean debugMode = false;
         public boolean debugHud = false;
@@ -4,6 +4,10 @@ import io.github.amerebagatelle.fabricskyboxes.FabricSkyBoxesClient;
 import io.github.amerebagatelle.fabricskyboxes.SkyboxManager;
 import io.github.amerebagatelle.fabricskyboxes.api.skyboxes.FSBSkybox;
 import io.github.amerebagatelle.fabricskyboxes.api.skyboxes.Skybox;
+import io.github.amerebagatelle.fabricskyboxes.util.ConditionStats;
+import io.github.amerebagatelle.fabricskyboxes.util.ConditionType;
+import io.github.amerebagatelle.fabricskyboxes.util.RenderStats;
+import io.github.amerebagatelle.fabricskyboxes.util.SkyboxComposite;
 import net.fabricmc.fabric.api.client.rendering.v1.HudRenderCallback;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.gui.DrawContext;
@@ -11,6 +15,7 @@ import net.minecraft.client.gui.screen.Screen;
 import net.minecraft.text.Text;
 import net.minecraft.util.Identifier;
 
+import java.util.Locale;
 import java.util.Map;
 
 public class SkyBoxDebugScreen extends Screen implements HudRenderCallback {
@@ -39,6 +44,26 @@ public class SkyBoxDebugScreen extends Screen implements HudRenderCallback {
                     yPadding += 14;
                 }
             }
+
+            ConditionStats stats = ConditionStats.getInstance();
+            for (ConditionType type : stats.getRanking()) {
+                long evaluations = stats.getEvaluations(type);
+                if (evaluations > 0) {
+                    String line = String.format("%s: %d evaluated, %.1f%% rejected, %.0f ns avg, %.2f ms total", type.name().toLowerCase(Locale.ROOT), evaluations, 100D * stats.getRejections(type) / evaluations, stats.getAverageNanos(type), stats.getTotalNanos(type) / 1_000_000D);
+                    drawContext.drawText(MinecraftClient.getInstance().textRenderer, line, 2, yPadding, 0xffffffff, false);
+                    yPadding += 14;
+                }
+            }
+
+            RenderStats renderStats = RenderStats.getInstance();
+            drawContext.drawText(MinecraftClient.getInstance().textRenderer, String.format("draw calls: %d, %d saved by stitching and batching, %d faces culled", renderStats.getDrawCalls(), renderStats.getSavedDrawCalls(), renderStats.getCulledFaces()), 2, yPadding, 0xffffffff, false);
+            yPadding += 14;
+            drawContext.drawText(MinecraftClient.getInstance().textRenderer, String.format("state changes: %d, %d redundant skipped", renderStats.getStateChanges(), renderStats.getSkippedStateChanges()), 2, yPadding, 0xffffffff, false);
+            yPadding += 14;
+            drawContext.drawText(MinecraftClient.getInstance().textRenderer, String.format("hidden layers: %d", renderStats.getHiddenLayers()), 2, yPadding, 0xffffffff, false);
+            yPadding += 14;
+            SkyboxComposite composite = SkyboxComposite.getInstance();
+            drawContext.drawText(MinecraftClient.getInstance().textRenderer, String.format("composite: %d hits, %d misses", composite.getHits(), composite.getMisses()), 2, yPadding, 0xffffffff, false);
         }
     }
 }
@@ -5,6 +5,9 @@ import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
 import io.github.amerebagatelle.fabricskyboxes.FabricSkyBoxesClient;
 import io.github.amerebagatelle.fabricskyboxes.SkyboxManager;
+import io.github.amerebagatelle.fabricskyboxes.api.skyboxes.Skybox;
+import io.github.amerebagatelle.fabricskyboxes.util.JsonObjectWrapper;
+import it.unimi.dsi.fastutil.objects.Object2ObjectLinkedOpenHashMap;
 import net.fabricmc.fabric.api.resource.SimpleSynchronousResourceReloadListener;
 import net.minecraft.resource.Resource;
 import net.minecraft.resource.ResourceManager;
@@ -25,16 +28,23 @@ public class SkyboxResourceListener implements SimpleSynchronousResourceReloadLi
 
         // load new skyboxes
         Map<Identifier, Resource> resources = manager.findResources("sky", identifier -> identifier.getPath().endsWith(".json"));
+        Map<Identifier, Skybox> skyboxes = new Object2ObjectLinkedOpenHashMap<>(resources.size());
 
         resources.forEach((identifier, resource) -> {
             try {
                 JsonObject json = GSON.fromJson(new InputStreamReader(resource.getInputStream()), JsonObject.class);
-                skyboxManager.addSkybox(identifier, json);
+                Skybox skybox = SkyboxManager.parseSkyboxJson(identifier, new JsonObjectWrapper(json));
+                if (skybox != null) {
+                    skyboxes.put(identifier, skybox);
+                }
             } catch (Exception e) {
                 FabricSkyBoxesClient.getLogger().error("Error reading skybox " + identifier.toString());
                 e.printStackTrace();
             }
         });
+
+        // register everything in one batch so the skyboxes are only sorted once
+        skyboxManager.addSkyboxes(skyboxes);
     }
 
     @Override
@@ -1,31 +1,45 @@
 package io.github.amerebagatelle.fabricskyboxes.skyboxes;
 
-import com.mojang.blaze3d.systems.RenderSystem;
 import io.github.amerebagatelle.fabricskyboxes.FabricSkyBoxesClient;
 import io.github.amerebagatelle.fabricskyboxes.api.skyboxes.FSBSkybox;
 import io.github.amerebagatelle.fabricskyboxes.api.skyboxes.Skybox;
 import io.github.amerebagatelle.fabricskyboxes.mixin.skybox.WorldRendererAccess;
+import io.github.amerebagatelle.fabricskyboxes.util.ConditionStats;
+import io.github.amerebagatelle.fabricskyboxes.util.ConditionType;
+import io.github.amerebagatelle.fabricskyboxes.util.RenderQueue;
+import io.github.amerebagatelle.fabricskyboxes.util.RenderStats;
+import io.github.amerebagatelle.fabricskyboxes.util.SkyContext;
+import io.github.amerebagatelle.fabricskyboxes.util.SkyRenderState;
+import io.github.amerebagatelle.fabricskyboxes.util.SkyboxGeometry;
 import io.github.amerebagatelle.fabricskyboxes.util.Utils;
 import io.github.amerebagatelle.fabricskyboxes.util.object.Conditions;
 import io.github.amerebagatelle.fabricskyboxes.util.object.Decorations;
+import io.github.amerebagatelle.fabricskyboxes.util.object.Fade;
+import io.github.amerebagatelle.fabricskyboxes.util.object.Loop;
+import io.github.amerebagatelle.fabricskyboxes.util.object.MinMaxEntry;
 import io.github.amerebagatelle.fabricskyboxes.util.object.Properties;
-import io.github.amerebagatelle.fabricskyboxes.util.object.Weather;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.gl.VertexBuffer;
-import net.minecraft.client.network.ClientPlayerEntity;
 import net.minecraft.client.render.*;
 import net.minecraft.client.util.math.MatrixStack;
 import net.minecraft.client.world.ClientWorld;
-import net.minecraft.entity.LivingEntity;
-import net.minecraft.entity.effect.StatusEffects;
+import net.minecraft.registry.DynamicRegistryManager;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.Registry;
 import net.minecraft.registry.RegistryKeys;
+import net.minecraft.util.Identifier;
 import net.minecraft.util.math.MathHelper;
-import net.minecraft.util.math.RotationAxis;
 import net.minecraft.world.biome.Biome;
+import org.jetbrains.annotations.Nullable;
 import org.joml.Matrix4f;
-import org.joml.Vector3f;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
+import java.util.function.ToIntFunction;
 
 /**
  * All classes that implement {@link AbstractSkybox} should
@@ -33,6 +47,8 @@ import java.util.Objects;
  * the type of the skybox.
  */
 public abstract class AbstractSkybox implements FSBSkybox {
+    private static final Identifier BLINDNESS = new Identifier("blindness");
+    private static final Identifier DARKNESS = new Identifier("darkness");
 
     /**
      * The current alpha for the skybox. Expects all skyboxes extending this to accommodate this.
@@ -45,6 +61,30 @@ public abstract class AbstractSkybox implements FSBSkybox {
 
     private int lastTime = -2;
     private float conditionAlpha = 0f;
+    private boolean lastCondition = false;
+    /**
+     * Cached results of the individual checks, indexed by {@link ConditionType#ordinal()}.
+     */
+    private final boolean[] checkResults = new boolean[ConditionType.VALUES.length];
+    /**
+     * Mask of the {@link ConditionType}s whose cached result is still valid.
+     */
+    private int validChecks = 0;
+    /**
+     * Mask of the {@link ConditionType}s whose results are provided by the skybox manager.
+     */
+    private int indexedChecks = 0;
+    /**
+     * The non-empty checks of the conditions, ordered by the ranking of {@link ConditionStats}.
+     */
+    private ConditionType[] conditionChain = null;
+    private int conditionChainVersion = -1;
+    private int evaluationCount = 0;
+    /**
+     * Raw ids of the biomes and effects of the conditions in the registries of the current world, null while unresolved.
+     */
+    private BitSet biomeRawIds = null;
+    private BitSet effectRawIds = null;
 
 
     protected AbstractSkybox() {
@@ -61,6 +101,16 @@ public abstract class AbstractSkybox implements FSBSkybox {
         this.updateAlpha();
     }
 
+    /**
+     * Ticks the skybox against a context shared by all skyboxes, this is what the skybox manager calls.
+     * With parallel evaluation enabled this is called from worker threads, so it must only touch the state of this skybox.
+     *
+     * @param context The world state of the current tick.
+     */
+    public void tick(SkyContext context) {
+        this.updateAlpha(context);
+    }
+
     /**
      * Calculates the alpha value for the current time and conditions and returns it.
      *
@@ -68,15 +118,27 @@ public abstract class AbstractSkybox implements FSBSkybox {
      */
     @Override
     public final float updateAlpha() {
-        int currentTime = (int) (Objects.requireNonNull(MinecraftClient.getInstance().world).getTimeOfDay() % 24000);
+        return this.updateAlpha(Objects.requireNonNull(SkyContext.capture(MinecraftClient.getInstance())));
+    }
 
-        boolean condition = this.checkConditions();
+    /**
+     * Calculates the alpha value for the given context and returns it.
+     *
+     * @param context The world state to evaluate against.
+     * @return The new alpha value.
+     */
+    public final float updateAlpha(SkyContext context) {
+        int currentTime = (int) (context.getTimeOfDay() % 24000);
+
+        this.validChecks &= ~(ConditionType.getInvalidated(context.getChanges()) & ~this.indexedChecks);
+        boolean condition = this.checkConditions(context);
+        this.lastCondition = condition;
 
         float fadeAlpha = 1f;
         if (this.properties.getFade().isAlwaysOn()) {
             this.conditionAlpha = Utils.calculateConditionAlphaValue(1f, 0f, this.conditionAlpha, condition ? this.properties.getTransitionInDuration() : this.properties.getTransitionOutDuration(), condition);
         } else {
-            fadeAlpha = Utils.calculateFadeAlphaValue(1f, 0f, currentTime, this.properties.getFade().getStartFadeIn(), this.properties.getFade().getEndFadeIn(), this.properties.getFade().getStartFadeOut(), this.properties.getFade().getEndFadeOut());
+            fadeAlpha = this.properties.getFade().getCurve().getAlpha(currentTime);
 
             if (this.lastTime == currentTime - 1 || this.lastTime == currentTime) { // Check if time is ticking or if time is same (doDaylightCycle gamerule)
                 this.conditionAlpha = Utils.calculateConditionAlphaValue(1f, 0f, this.conditionAlpha, condition ? this.properties.getTransitionInDuration() : this.properties.getTransitionOutDuration(), condition);
@@ -94,110 +156,355 @@ public abstract class AbstractSkybox implements FSBSkybox {
     }
 
     /**
+     * Determines until which world time the alpha of this skybox cannot change, as long as none
+     * of the inputs in {@link #getDependencies()} change. Must be called right after a tick.
+     *
+     * @param context The context of the latest tick.
+     * @return The world time at which the skybox has to be ticked again, or the current time if
+     * the alpha is still transitioning.
+     */
+    public long getSettledUntil(SkyContext context) {
+        long timeOfDay = context.getTimeOfDay();
+        if (this.conditionAlpha != (this.lastCondition ? 1f : 0f)) {
+            return timeOfDay;
+        }
+
+        long settledUntil = Long.MAX_VALUE;
+        Fade fade = this.properties.getFade();
+        if (!fade.isAlwaysOn()) {
+            int constantFor = fade.getCurve().getConstantFor(timeOfDay);
+            if (constantFor == 0) {
+                return timeOfDay;
+            }
+            settledUntil = timeOfDay + constantFor;
+        }
+
+        Loop loop = this.conditions.getLoop();
+        if (!loop.getRanges().isEmpty() && loop.getDays() > 0) {
+            double cycle = 24000 * loop.getDays();
+            double currentTime = (timeOfDay - this.properties.getFade().getStartFadeIn()) % cycle;
+            if (currentTime < 0) {
+                currentTime += cycle;
+            }
+            // The loop day wraps around at the end of the cycle
+            double distance = nextLoopChange(currentTime, 0, cycle);
+            for (MinMaxEntry range : loop.getRanges()) {
+                distance = Math.min(distance, nextLoopChange(currentTime, Math.floor(range.getMin() * 24000D), cycle));
+                distance = Math.min(distance, nextLoopChange(currentTime, Math.floor(range.getMax() * 24000D), cycle));
+            }
+            // Rounding down wakes the skybox early at worst, which only costs an additional evaluation
+            settledUntil = Math.min(settledUntil, timeOfDay + Math.max(1L, (long) Math.floor(distance)));
+        }
+        return settledUntil;
+    }
+
+    /**
+     * Subclasses that override any condition check with additional inputs must also override
+     * this method or {@link #getSettledUntil(SkyContext)}.
+     *
+     * @return The {@link SkyContext} change flags of every input the conditions of this skybox depend on.
+     */
+    public int getDependencies() {
+        int dependencies = 0;
+        for (ConditionType type : ConditionType.VALUES) {
+            if ((this.getConditionMask() & type.getMask()) != 0) {
+                dependencies |= type.getDependencies();
+            }
+        }
+        return dependencies;
+    }
+
+    /**
+     * Subclasses that override a check of an empty condition must also override this method.
+     *
+     * @return The mask of every {@link ConditionType} that can reject, empty conditions always pass
+     */
+    public int getConditionMask() {
+        // Effects are always checked, without configured effects the vanilla checks apply
+        int mask = ConditionType.EFFECTS.getMask();
+        if (!this.conditions.getDimensions().isEmpty()) {
+            mask |= ConditionType.DIMENSIONS.getMask();
+        }
+        if (!this.conditions.getWorlds().isEmpty()) {
+            mask |= ConditionType.WORLDS.getMask();
+        }
+        if (!this.conditions.getBiomes().isEmpty()) {
+            mask |= ConditionType.BIOMES.getMask();
+        }
+        if (!this.conditions.getXRanges().isEmpty()) {
+            mask |= ConditionType.X_RANGES.getMask();
+        }
+        if (!this.conditions.getYRanges().isEmpty()) {
+            mask |= ConditionType.Y_RANGES.getMask();
+        }
+        if (!this.conditions.getZRanges().isEmpty()) {
+            mask |= ConditionType.Z_RANGES.getMask();
+        }
+        if (!this.conditions.getWeathers().isEmpty()) {
+            mask |= ConditionType.WEATHER.getMask();
+        }
+        if (!this.conditions.getLoop().getRanges().isEmpty() && this.conditions.getLoop().getDays() > 0) {
+            mask |= ConditionType.LOOP.getMask();
+        }
+        return mask;
+    }
+
+    /**
+     * Resumes ticking after the skybox has been skipped while it was settled.
+     *
+     * @param previousTimeOfDay The world time of the tick before the current one.
+     */
+    public void resume(long previousTimeOfDay) {
+        // Pretend the skybox was ticked all along, so a regular wake up is not treated as a time jump
+        this.lastTime = (int) (previousTimeOfDay % 24000);
+        this.validChecks &= this.indexedChecks;
+    }
+
+    /**
+     * @return The distance to the next time at which a loop boundary can change the loop condition.
+     */
+    private static double nextLoopChange(double currentTime, double boundary, double cycle) {
+        return Math.min(nextCyclicDistance(currentTime, boundary, cycle), nextCyclicDistance(currentTime, boundary + 1, cycle));
+    }
+
+    private static double nextCyclicDistance(double currentTime, double time, double cycle) {
+        double distance = (time - currentTime) % cycle;
+        if (distance <= 0) {
+            distance += cycle;
+        }
+        return distance;
+    }
+
+    /**
+     * Fades the skybox out immediately, used once a skybox can no longer be shown in the current dimension.
+     */
+    public void resetAlpha() {
+        this.conditionAlpha = 0f;
+        this.alpha = 0f;
+        this.validChecks &= this.indexedChecks;
+    }
+
+    /**
+     * Resolves the biome and effect ids of the conditions to raw ids, which are compared
+     * directly from then on. Called by the skybox manager whenever the registries change.
+     *
+     * @param registries The registries of the current world, null to compare ids again
+     * @return Every id that does not exist in the registries
+     */
+    public List<Identifier> resolveConditions(@Nullable DynamicRegistryManager registries) {
+        if (registries == null) {
+            this.validChecks &= this.indexedChecks;
+            this.biomeRawIds = null;
+            this.effectRawIds = null;
+            return List.of();
+        }
+        Registry<Biome> biomes = registries.get(RegistryKeys.BIOME);
+        return this.resolveConditions(id -> getRawId(biomes, id), id -> getRawId(Registries.STATUS_EFFECT, id));
+    }
+
+    /**
+     * @param biomeRawIds  Looks up the raw id of a biome, -1 if it does not exist
+     * @param effectRawIds Looks up the raw id of a status effect, -1 if it does not exist
+     * @return Every id that does not exist
+     * @see #resolveConditions(DynamicRegistryManager)
+     */
+    public List<Identifier> resolveConditions(ToIntFunction<Identifier> biomeRawIds, ToIntFunction<Identifier> effectRawIds) {
+        this.validChecks &= this.indexedChecks;
+        List<Identifier> unknownIds = new ArrayList<>();
+        this.biomeRawIds = resolveRawIds(biomeRawIds, this.conditions.getCompiled().getBiomes(), unknownIds);
+        this.effectRawIds = resolveRawIds(effectRawIds, Arrays.asList(this.conditions.getCompiled().getEffects()), unknownIds);
+        return unknownIds;
+    }
+
+    private static <T> int getRawId(Registry<T> registry, Identifier id) {
+        T value = registry.get(id);
+        return value != null && registry.containsId(id) ? registry.getRawId(value) : -1;
+    }
+
+    private static BitSet resolveRawIds(ToIntFunction<Identifier> lookup, Collection<Identifier> ids, List<Identifier> unknownIds) {
+        BitSet rawIds = new BitSet();
+        for (Identifier id : ids) {
+            int rawId = lookup.applyAsInt(id);
+            if (rawId >= 0) {
+                rawIds.set(rawId);
+            } else {
+                unknownIds.add(id);
+            }
+        }
+        return rawIds;
+    }
+
+    /**
+     * Marks whether the result of a check is provided through {@link #setIndexedResult(ConditionType, boolean)}
+     * instead of being evaluated by this skybox. Used by the skybox manager for range conditions.
+     */
+    public void setIndexed(ConditionType type, boolean indexed) {
+        if (indexed) {
+            this.indexedChecks |= type.getMask();
+        } else {
+            this.indexedChecks &= ~type.getMask();
+            this.validChecks &= ~type.getMask();
+        }
+    }
+
+    /**
+     * Provides the result of an indexed check, which stays valid until the next call.
+     */
+    public void setIndexedResult(ConditionType type, boolean result) {
+        this.checkResults[type.ordinal()] = result;
+        this.validChecks |= type.getMask();
+    }
+
+    /**
+     * Runs the non-empty checks ordered by their cost per rejection until one fails. Checks whose
+     * inputs did not change since they were last evaluated reuse their previous result.
+     *
      * @return Whether all conditions were met
      */
-    protected boolean checkConditions() {
-        return this.checkDimensions() && this.checkWorlds() && this.checkBiomes() && this.checkXRanges() &&
-                this.checkYRanges() && this.checkZRanges() && this.checkWeather() && this.checkEffects() &&
-                this.checkLoop();
+    protected boolean checkConditions(SkyContext context) {
+        ConditionStats stats = ConditionStats.getInstance();
+        if (this.conditionChain == null || this.conditionChainVersion != stats.getVersion()) {
+            this.compileConditions(stats);
+        }
+        boolean sample = this.evaluationCount++ % ConditionStats.SAMPLE_INTERVAL == 0;
+        for (ConditionType type : this.conditionChain) {
+            int mask = type.getMask();
+            if ((this.validChecks & mask) == 0) {
+                boolean result;
+                if (sample) {
+                    long start = System.nanoTime();
+                    result = this.check(type, context);
+                    stats.recordSample(type, result, System.nanoTime() - start);
+                } else {
+                    result = this.check(type, context);
+                    stats.record(type, result);
+                }
+                this.checkResults[type.ordinal()] = result;
+                this.validChecks |= mask;
+            }
+            if (!this.checkResults[type.ordinal()]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void compileConditions(ConditionStats stats) {
+        int version = stats.getVersion();
+        int conditionMask = this.getConditionMask();
+        this.conditionChain = Arrays.stream(stats.getRanking())
+                .filter(type -> (conditionMask & type.getMask()) != 0)
+                .toArray(ConditionType[]::new);
+        this.conditionChainVersion = version;
+    }
+
+    /**
+     * Runs a single check against the given context.
+     */
+    protected boolean check(ConditionType type, SkyContext context) {
+        return switch (type) {
+            case DIMENSIONS -> this.checkDimensions(context);
+            case WORLDS -> this.checkWorlds(context);
+            case BIOMES -> this.checkBiomes(context);
+            case X_RANGES -> this.checkXRanges(context);
+            case Y_RANGES -> this.checkYRanges(context);
+            case Z_RANGES -> this.checkZRanges(context);
+            case WEATHER -> this.checkWeather(context);
+            case EFFECTS -> this.checkEffects(context);
+            case LOOP -> this.checkLoop(context);
+        };
     }
 
     /**
      * @return Whether the current biomes and dimensions are valid for this skybox.
      */
-    protected boolean checkBiomes() {
-        MinecraftClient client = MinecraftClient.getInstance();
-        Objects.requireNonNull(client.world);
-        Objects.requireNonNull(client.player);
-        return this.conditions.getBiomes().isEmpty() || this.conditions.getBiomes().contains(client.world.getRegistryManager().get(RegistryKeys.BIOME).getId(client.world.getBiome(client.player.getBlockPos()).value()));
+    protected boolean checkBiomes(SkyContext context) {
+        if (this.conditions.getCompiled().getBiomes().isEmpty()) {
+            return true;
+        }
+        if (this.biomeRawIds != null) {
+            return context.getBiomeRawId() >= 0 && this.biomeRawIds.get(context.getBiomeRawId());
+        }
+        return this.conditions.getCompiled().getBiomes().contains(context.getBiome());
     }
 
     /**
      * @return Whether the current dimension identifier is valid for this skybox
      */
-    protected boolean checkDimensions() {
-        MinecraftClient client = MinecraftClient.getInstance();
-        Objects.requireNonNull(client.world);
-        return this.conditions.getDimensions().isEmpty() || this.conditions.getDimensions().contains(client.world.getRegistryKey().getValue());
+    protected boolean checkDimensions(SkyContext context) {
+        return this.conditions.getCompiled().getDimensions().isEmpty() || this.conditions.getCompiled().getDimensions().contains(context.getDimension());
     }
 
     /**
      * @return Whether the current dimension sky effect is valid for this skybox
      */
-    protected boolean checkWorlds() {
-        MinecraftClient client = MinecraftClient.getInstance();
-        Objects.requireNonNull(client.world);
-        return this.conditions.getWorlds().isEmpty() || this.conditions.getWorlds().contains(client.world.getDimension().effects());
+    protected boolean checkWorlds(SkyContext context) {
+        return this.conditions.getCompiled().getWorlds().isEmpty() || this.conditions.getCompiled().getWorlds().contains(context.getDimensionEffects());
     }
 
     /*
 		Check if an effect that should prevent skybox from showing
      */
-    protected boolean checkEffects() {
-        MinecraftClient client = MinecraftClient.getInstance();
-        Objects.requireNonNull(client.world);
-
-        Camera camera = client.gameRenderer.getCamera();
-
-        if (this.conditions.getEffects().isEmpty()) {
+    protected boolean checkEffects(SkyContext context) {
+        Identifier[] effects = this.conditions.getCompiled().getEffects();
+        if (effects.length == 0) {
             // Vanilla checks
-            boolean thickFog = client.world.getDimensionEffects().useThickFog(MathHelper.floor(camera.getPos().getX()), MathHelper.floor(camera.getPos().getY())) || client.inGameHud.getBossBarHud().shouldThickenFog();
-            if (thickFog) {
+            if (context.isThickFog()) {
                 // Render skybox in thick fog, enabled by default
                 return this.properties.isRenderInThickFog();
             }
 
-            CameraSubmersionType cameraSubmersionType = camera.getSubmersionType();
+            CameraSubmersionType cameraSubmersionType = context.getSubmersionType();
             if (cameraSubmersionType == CameraSubmersionType.POWDER_SNOW || cameraSubmersionType == CameraSubmersionType.LAVA)
                 return false;
 
-            return !(camera.getFocusedEntity() instanceof LivingEntity livingEntity) || (!livingEntity.hasStatusEffect(StatusEffects.BLINDNESS) && !livingEntity.hasStatusEffect(StatusEffects.DARKNESS));
-
+            return !context.hasEffect(BLINDNESS) && !context.hasEffect(DARKNESS);
+        } else if (this.effectRawIds != null) {
+            return !context.hasAnyEffect(this.effectRawIds);
         } else {
-            if (camera.getFocusedEntity() instanceof LivingEntity livingEntity) {
-                return this.conditions.getEffects().stream().noneMatch(identifier -> client.world.getRegistryManager().get(RegistryKeys.STATUS_EFFECT).get(identifier) != null && livingEntity.hasStatusEffect(client.world.getRegistryManager().get(RegistryKeys.STATUS_EFFECT).getEntry(client.world.getRegistryManager().get(RegistryKeys.STATUS_EFFECT).get(identifier))));
+            for (Identifier effect : effects) {
+                if (context.hasEffect(effect)) {
+                    return false;
+                }
             }
+            return true;
         }
-        return true;
     }
 
     /**
      * @return Whether the current x values are valid for this skybox.
      */
-    protected boolean checkXRanges() {
-        double playerX = Objects.requireNonNull(MinecraftClient.getInstance().player).getX();
-        return Utils.checkRanges(playerX, this.conditions.getXRanges());
+    protected boolean checkXRanges(SkyContext context) {
+        return this.conditions.getCompiled().getXRanges().contains(context.getX());
     }
 
     /**
      * @return Whether the current y values are valid for this skybox.
      */
-    protected boolean checkYRanges() {
-        double playerY = Objects.requireNonNull(MinecraftClient.getInstance().player).getY();
-        return Utils.checkRanges(playerY, this.conditions.getYRanges());
+    protected boolean checkYRanges(SkyContext context) {
+        return this.conditions.getCompiled().getYRanges().contains(context.getY());
     }
 
     /**
      * @return Whether the current z values are valid for this skybox.
      */
-    protected boolean checkZRanges() {
-        double playerZ = Objects.requireNonNull(MinecraftClient.getInstance().player).getZ();
-        return Utils.checkRanges(playerZ, this.conditions.getZRanges());
+    protected boolean checkZRanges(SkyContext context) {
+        return this.conditions.getCompiled().getZRanges().contains(context.getZ());
     }
 
     /**
      * @return Whether the current loop is valid for this skybox.
      */
-    protected boolean checkLoop() {
+    protected boolean checkLoop(SkyContext context) {
         if (!this.conditions.getLoop().getRanges().isEmpty() && this.conditions.getLoop().getDays() > 0) {
-            double currentTime = Objects.requireNonNull(MinecraftClient.getInstance().world).getTimeOfDay() - this.properties.getFade().getStartFadeIn();
+            double currentTime = context.getTimeOfDay() - this.properties.getFade().getStartFadeIn();
             while (currentTime < 0) {
                 currentTime += 24000 * this.conditions.getLoop().getDays();
             }
 
             double currentDay = (currentTime / 24000D) % this.conditions.getLoop().getDays();
 
-            return Utils.checkRanges(currentDay, this.conditions.getLoop().getRanges());
+            return this.conditions.getCompiled().getLoopRanges().contains(currentDay);
         }
         return true;
     }
@@ -205,118 +512,69 @@ public abstract class AbstractSkybox implements FSBSkybox {
     /**
      * @return Whether the current weather is valid for this skybox.
      */
-    protected boolean checkWeather() {
-        ClientWorld world = Objects.requireNonNull(MinecraftClient.getInstance().world);
-        ClientPlayerEntity player = Objects.requireNonNull(MinecraftClient.getInstance().player);
-        Biome.Precipitation precipitation = world.getBiome(player.getBlockPos()).value().getPrecipitation(player.getBlockPos());
-        if (!this.conditions.getWeathers().isEmpty()) {
-            if (this.conditions.getWeathers().contains(Weather.THUNDER) && world.isThundering()) {
-                return true;
-            }
-            if (this.conditions.getWeathers().contains(Weather.RAIN) && world.isRaining() && !world.isThundering()) {
-                return true;
-            }
-            if (this.conditions.getWeathers().contains(Weather.SNOW) && world.isRaining() && precipitation == Biome.Precipitation.SNOW) {
-                return true;
-            }
-            if (this.conditions.getWeathers().contains(Weather.BIOME_RAIN) && world.isRaining() && precipitation == Biome.Precipitation.RAIN) {
-                return true;
-            }
-            return this.conditions.getWeathers().contains(Weather.CLEAR) && !world.isRaining() && !world.isThundering();
-        } else {
-            return true;
-        }
+    protected boolean checkWeather(SkyContext context) {
+        int weatherMask = this.conditions.getCompiled().getWeatherMask();
+        return weatherMask == 0 || (weatherMask & context.getWeatherMask()) != 0;
     }
 
     public abstract SkyboxType<? extends Skybox> getType();
 
+    /**
+     * @return Whether this skybox draws its geometry only through the {@link RenderQueue}, so the
+     * queue does not need to be flushed before it renders
+     */
+    public boolean isQueued() {
+        return false;
+    }
+
+    /**
+     * @return Whether the skybox currently covers the whole sky with opaque colors, which hides
+     * every skybox drawn before it
+     */
+    public boolean isOpaque() {
+        return false;
+    }
+
     public void renderDecorations(WorldRendererAccess worldRendererAccess, MatrixStack matrixStack, Matrix4f projectionMatrix, float tickDelta, BufferBuilder bufferBuilder, float alpha, Runnable fogCallback) {
-        RenderSystem.enableBlend();
-        Vector3f rotationStatic = this.decorations.getRotation().getStatic();
-        Vector3f rotationAxis = this.decorations.getRotation().getAxis();
+        if (!this.decorations.isSunEnabled() && !this.decorations.isMoonEnabled() && !this.decorations.isStarsEnabled()) {
+            return;
+        }
         ClientWorld world = MinecraftClient.getInstance().world;
         assert world != null;
 
-        // Custom Blender
-        this.decorations.getBlend().applyBlendFunc(alpha);
+        RenderQueue queue = RenderQueue.getInstance();
         matrixStack.push();
-
-        // axis rotation
-        matrixStack.multiply(RotationAxis.POSITIVE_X.rotationDegrees(rotationAxis.x()));
-        matrixStack.multiply(RotationAxis.POSITIVE_Y.rotationDegrees(rotationAxis.y()));
-        matrixStack.multiply(RotationAxis.POSITIVE_Z.rotationDegrees(rotationAxis.z()));
-
-        // Vanilla rotation
-        //matrixStack.multiply(RotationAxis.POSITIVE_Y.rotationDegrees(-90.0F));
-        // Iris Compat
-        //matrixStack.multiply(RotationAxis.POSITIVE_Z.rotationDegrees(IrisCompat.getSunPathRotation()));
-        //matrixStack.multiply(RotationAxis.POSITIVE_X.rotationDegrees(world.getSkyAngle(tickDelta) * 360.0F * this.decorations.getRotation().getRotationSpeed()));
-
-        // Custom rotation
-        double timeRotationX = Utils.calculateRotation(this.decorations.getRotation().getRotationSpeedX(), this.decorations.getRotation().getTimeShift().x(), this.decorations.getRotation().getSkyboxRotation(), world);
-        double timeRotationY = Utils.calculateRotation(this.decorations.getRotation().getRotationSpeedY(), this.decorations.getRotation().getTimeShift().y(), this.decorations.getRotation().getSkyboxRotation(), world);
-        double timeRotationZ = Utils.calculateRotation(this.decorations.getRotation().getRotationSpeedZ(), this.decorations.getRotation().getTimeShift().z(), this.decorations.getRotation().getSkyboxRotation(), world);
-        matrixStack.multiply(RotationAxis.POSITIVE_X.rotationDegrees((float) timeRotationX));
-        matrixStack.multiply(RotationAxis.POSITIVE_Y.rotationDegrees((float) timeRotationY));
-        matrixStack.multiply(RotationAxis.POSITIVE_Z.rotationDegrees((float) timeRotationZ));
-
-        // axis rotation
-        matrixStack.multiply(RotationAxis.NEGATIVE_Z.rotationDegrees(rotationAxis.z()));
-        matrixStack.multiply(RotationAxis.NEGATIVE_Y.rotationDegrees(rotationAxis.y()));
-        matrixStack.multiply(RotationAxis.NEGATIVE_X.rotationDegrees(rotationAxis.x()));
-
-        // static rotation
-        matrixStack.multiply(RotationAxis.POSITIVE_X.rotationDegrees(rotationStatic.x()));
-        matrixStack.multiply(RotationAxis.POSITIVE_Y.rotationDegrees(rotationStatic.y()));
-        matrixStack.multiply(RotationAxis.POSITIVE_Z.rotationDegrees(rotationStatic.z()));
-
-        Matrix4f matrix4f2 = matrixStack.peek().getPositionMatrix();
-        RenderSystem.setShader(GameRenderer::getPositionTexProgram);
-        // Sun
+        // axis + time + static rotation
+        matrixStack.multiply(this.decorations.getRotation().getQuaternion(world));
+        // Sun and moon are shared static buffers, the moon phase only selects one of them
         if (this.decorations.isSunEnabled()) {
-            RenderSystem.setShaderTexture(0, this.decorations.getSunTexture());
-            bufferBuilder.begin(VertexFormat.DrawMode.QUADS, VertexFormats.POSITION_TEXTURE);
-            bufferBuilder.vertex(matrix4f2, -30.0F, 100.0F, -30.0F).texture(0.0F, 0.0F).next();
-            bufferBuilder.vertex(matrix4f2, 30.0F, 100.0F, -30.0F).texture(1.0F, 0.0F).next();
-            bufferBuilder.vertex(matrix4f2, 30.0F, 100.0F, 30.0F).texture(1.0F, 1.0F).next();
-            bufferBuilder.vertex(matrix4f2, -30.0F, 100.0F, 30.0F).texture(0.0F, 1.0F).next();
-            BufferRenderer.drawWithGlobalProgram(bufferBuilder.end());
+            queue.submit(SkyboxGeometry.getSun(), this.decorations.getSunTexture(), this.decorations.getBlend(), alpha, matrixStack);
         }
-        // Moon
         if (this.decorations.isMoonEnabled()) {
-            RenderSystem.setShaderTexture(0, this.decorations.getMoonTexture());
-            int moonPhase = world.getMoonPhase();
-            int xCoord = moonPhase % 4;
-            int yCoord = moonPhase / 4 % 2;
-            float startX = xCoord / 4.0F;
-            float startY = yCoord / 2.0F;
-            float endX = (xCoord + 1) / 4.0F;
-            float endY = (yCoord + 1) / 2.0F;
-            bufferBuilder.begin(VertexFormat.DrawMode.QUADS, VertexFormats.POSITION_TEXTURE);
-            bufferBuilder.vertex(matrix4f2, -20.0F, -100.0F, 20.0F).texture(endX, endY).next();
-            bufferBuilder.vertex(matrix4f2, 20.0F, -100.0F, 20.0F).texture(startX, endY).next();
-            bufferBuilder.vertex(matrix4f2, 20.0F, -100.0F, -20.0F).texture(startX, startY).next();
-            bufferBuilder.vertex(matrix4f2, -20.0F, -100.0F, -20.0F).texture(endX, startY).next();
-            BufferRenderer.drawWithGlobalProgram(bufferBuilder.end());
+            queue.submit(SkyboxGeometry.getMoon(world.getMoonPhase()), this.decorations.getMoonTexture(), this.decorations.getBlend(), alpha, matrixStack);
         }
         // Stars
         if (this.decorations.isStarsEnabled()) {
             float i = 1.0F - world.getRainGradient(tickDelta);
             float brightness = world.getStarBrightness(tickDelta) * i;
             if (brightness > 0.0F) {
-                RenderSystem.setShaderColor(brightness, brightness, brightness, brightness);
+                // Stars are drawn directly and must end up above the queued geometry
+                queue.flush();
+                SkyRenderState state = SkyRenderState.getInstance();
+                state.depthMask(false);
+                state.enableBlend();
+                // Custom Blender
+                this.decorations.getBlend().applyBlendState();
+                state.shaderColor(brightness, brightness, brightness, brightness);
                 BackgroundRenderer.clearFog();
                 worldRendererAccess.getStarsBuffer().bind();
                 worldRendererAccess.getStarsBuffer().draw(matrixStack.peek().getPositionMatrix(), projectionMatrix, GameRenderer.getPositionProgram());
                 VertexBuffer.unbind();
                 fogCallback.run();
+                RenderStats.getInstance().recordDrawCall();
             }
         }
         matrixStack.pop();
-
-        RenderSystem.setShaderColor(1.0F, 1.0F, 1.0F, 1.0F);
-        RenderSystem.disableBlend();
-        RenderSystem.defaultBlendFunc();
     }
 
     @Override
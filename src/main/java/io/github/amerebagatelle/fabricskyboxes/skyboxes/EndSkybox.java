@@ -1,17 +1,20 @@
 package io.github.amerebagatelle.fabricskyboxes.skyboxes;
 
-import com.mojang.blaze3d.systems.RenderSystem;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import io.github.amerebagatelle.fabricskyboxes.api.skyboxes.Skybox;
 import io.github.amerebagatelle.fabricskyboxes.mixin.skybox.WorldRendererAccess;
+import io.github.amerebagatelle.fabricskyboxes.util.RenderQueue;
+import io.github.amerebagatelle.fabricskyboxes.util.SkyboxGeometry;
+import io.github.amerebagatelle.fabricskyboxes.util.object.Blend;
 import io.github.amerebagatelle.fabricskyboxes.util.object.Conditions;
 import io.github.amerebagatelle.fabricskyboxes.util.object.Decorations;
 import io.github.amerebagatelle.fabricskyboxes.util.object.Properties;
 import net.minecraft.client.MinecraftClient;
-import net.minecraft.client.render.*;
+import net.minecraft.client.render.BufferBuilder;
+import net.minecraft.client.render.Camera;
+import net.minecraft.client.render.Tessellator;
 import net.minecraft.client.util.math.MatrixStack;
-import net.minecraft.util.math.RotationAxis;
 import org.joml.Matrix4f;
 
 public class EndSkybox extends AbstractSkybox {
@@ -20,6 +23,7 @@ public class EndSkybox extends AbstractSkybox {
             Conditions.CODEC.optionalFieldOf("conditions", Conditions.DEFAULT).forGetter(AbstractSkybox::getConditions),
             Decorations.CODEC.optionalFieldOf("decorations", Decorations.DEFAULT).forGetter(AbstractSkybox::getDecorations)
     ).apply(instance, EndSkybox::new));
+    private final SkyboxGeometry.Slot cubeSlot = new SkyboxGeometry.Slot();
 
     public EndSkybox(Properties properties, Conditions conditions, Decorations decorations) {
         super(properties, conditions, decorations);
@@ -37,46 +41,14 @@ public class EndSkybox extends AbstractSkybox {
 
         BufferBuilder bufferBuilder = Tessellator.getInstance().getBuffer();
 
-        RenderSystem.enableBlend();
-        RenderSystem.depthMask(false);
-        RenderSystem.setShader(GameRenderer::getPositionTexColorProgram);
-        RenderSystem.setShaderTexture(0, WorldRendererAccess.getEndSky());
-        bufferBuilder.begin(VertexFormat.DrawMode.QUADS, VertexFormats.POSITION_TEXTURE_COLOR);
-
-        for (int i = 0; i < 6; ++i) {
-            matrices.push();
-            if (i == 1) {
-                matrices.multiply(RotationAxis.POSITIVE_X.rotationDegrees(90.0F));
-            }
-
-            if (i == 2) {
-                matrices.multiply(RotationAxis.POSITIVE_X.rotationDegrees(-90.0F));
-            }
-
-            if (i == 3) {
-                matrices.multiply(RotationAxis.POSITIVE_X.rotationDegrees(180.0F));
-            }
-
-            if (i == 4) {
-                matrices.multiply(RotationAxis.POSITIVE_Z.rotationDegrees(90.0F));
-            }
-
-            if (i == 5) {
-                matrices.multiply(RotationAxis.POSITIVE_Z.rotationDegrees(-90.0F));
-            }
-
-            Matrix4f matrix4f = matrices.peek().getPositionMatrix();
-            bufferBuilder.vertex(matrix4f, -100.0F, -100.0F, -100.0F).texture(0.0F, 0.0F).color(40, 40, 40, (int) (255 * this.alpha)).next();
-            bufferBuilder.vertex(matrix4f, -100.0F, -100.0F, 100.0F).texture(0.0F, 16.0F).color(40, 40, 40, (int) (255 * this.alpha)).next();
-            bufferBuilder.vertex(matrix4f, 100.0F, -100.0F, 100.0F).texture(16.0F, 16.0F).color(40, 40, 40, (int) (255 * this.alpha)).next();
-            bufferBuilder.vertex(matrix4f, 100.0F, -100.0F, -100.0F).texture(16.0F, 0.0F).color(40, 40, 40, (int) (255 * this.alpha)).next();
-            matrices.pop();
-        }
-        BufferRenderer.drawWithGlobalProgram(bufferBuilder.end());
+        // The cube is baked at full alpha, fade it like the vanilla end sky fades its vertices
+        RenderQueue.getInstance().submit(SkyboxGeometry.getEndCube(this.cubeSlot), WorldRendererAccess.getEndSky(), Blend.DEFAULT, 1.0F, matrices, 1.0F, 1.0F, 1.0F, (int) (255 * this.alpha) / 255.0F);
 
         this.renderDecorations(worldRendererAccess, matrices, projectionMatrix, tickDelta, bufferBuilder, this.alpha, fogCallback);
+    }
 
-        RenderSystem.depthMask(true);
-        RenderSystem.disableBlend();
+    @Override
+    public boolean isQueued() {
+        return true;
     }
 }
@@ -17,6 +17,7 @@ import net.minecraft.util.JsonHelper;
 import org.joml.Vector3f;
 import org.joml.Vector3i;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.BiConsumer;
 
@@ -72,21 +73,22 @@ public class LegacyDeserializer<T extends Skybox> {
         // decorations
         ((AbstractSkybox) skybox).decorations = Decorations.DEFAULT;
         // environment specifications
+        Conditions.Builder conditions = new Conditions.Builder();
         JsonElement element;
         element = wrapper.getOptionalValue("weather").orElse(null);
         if (element != null) {
             if (element.isJsonArray()) {
                 for (JsonElement jsonElement : element.getAsJsonArray()) {
-                    ((AbstractSkybox) skybox).conditions.getWeathers().add(Weather.fromString(jsonElement.getAsString()));
+                    conditions.weather(Weather.fromString(jsonElement.getAsString()));
                 }
             } else if (JsonHelper.isString(element)) {
-                ((AbstractSkybox) skybox).conditions.getWeathers().add(Weather.fromString(element.getAsString()));
+                conditions.weather(Weather.fromString(element.getAsString()));
             }
         }
         element = wrapper.getOptionalValue("biomes").orElse(null);
-        processIds(element, ((AbstractSkybox) skybox).conditions.getBiomes());
+        conditions.biomes(processIds(element));
         element = wrapper.getOptionalValue("dimensions").orElse(null);
-        processIds(element, ((AbstractSkybox) skybox).conditions.getWorlds());
+        conditions.worlds(processIds(element));
         element = wrapper.getOptionalValue("heightRanges").orElse(null);
         if (element != null) {
             JsonArray array = element.getAsJsonArray();
@@ -94,12 +96,15 @@ public class LegacyDeserializer<T extends Skybox> {
                 JsonArray insideArray = jsonElement.getAsJsonArray();
                 float low = insideArray.get(0).getAsFloat();
                 float high = insideArray.get(1).getAsFloat();
-                ((AbstractSkybox) skybox).conditions.getYRanges().add(new MinMaxEntry(low, high));
+                conditions.yRanges(new MinMaxEntry(low, high));
             }
         }
+        // Conditions are compiled on creation, so they are built once all values are known
+        ((AbstractSkybox) skybox).conditions = conditions.build();
     }
 
-    private static void processIds(JsonElement element, List<Identifier> list) {
+    private static List<Identifier> processIds(JsonElement element) {
+        List<Identifier> list = new ArrayList<>();
         if (element != null) {
             if (element.isJsonArray()) {
                 for (JsonElement jsonElement : element.getAsJsonArray()) {
@@ -109,6 +114,7 @@ public class LegacyDeserializer<T extends Skybox> {
                 list.add(new Identifier(element.getAsString()));
             }
         }
+        return list;
     }
 
     private static <T extends Skybox> LegacyDeserializer<T> register(LegacyDeserializer<T> deserializer, String name) {
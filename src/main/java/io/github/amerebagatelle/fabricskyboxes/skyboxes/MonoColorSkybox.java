@@ -1,14 +1,16 @@
 package io.github.amerebagatelle.fabricskyboxes.skyboxes;
 
-import com.mojang.blaze3d.systems.RenderSystem;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import io.github.amerebagatelle.fabricskyboxes.api.skyboxes.Skybox;
 import io.github.amerebagatelle.fabricskyboxes.mixin.skybox.WorldRendererAccess;
+import io.github.amerebagatelle.fabricskyboxes.util.RenderQueue;
+import io.github.amerebagatelle.fabricskyboxes.util.SkyboxGeometry;
 import io.github.amerebagatelle.fabricskyboxes.util.object.*;
-import net.minecraft.client.render.*;
+import net.minecraft.client.render.BufferBuilder;
+import net.minecraft.client.render.Camera;
+import net.minecraft.client.render.Tessellator;
 import net.minecraft.client.util.math.MatrixStack;
-import net.minecraft.util.math.RotationAxis;
 import org.joml.Matrix4f;
 
 public class MonoColorSkybox extends AbstractSkybox {
@@ -21,6 +23,7 @@ public class MonoColorSkybox extends AbstractSkybox {
     ).apply(instance, MonoColorSkybox::new));
     public RGBA color;
     public Blend blend;
+    private final SkyboxGeometry.Slot cubeSlot = new SkyboxGeometry.Slot();
 
     public MonoColorSkybox() {
     }
@@ -39,46 +42,24 @@ public class MonoColorSkybox extends AbstractSkybox {
     @Override
     public void render(WorldRendererAccess worldRendererAccess, MatrixStack matrices, Matrix4f projectionMatrix, float tickDelta, Camera camera, boolean thickFog, Runnable fogCallback) {
         if (this.alpha > 0) {
-            RenderSystem.depthMask(false);
-            RenderSystem.enableBlend();
-            RenderSystem.setShader(GameRenderer::getPositionColorProgram);
-            this.blend.applyBlendFunc(this.alpha);
-            BufferBuilder bufferBuilder = Tessellator.getInstance().getBuffer();
-            bufferBuilder.begin(VertexFormat.DrawMode.QUADS, VertexFormats.POSITION_COLOR);
-
-            for (int i = 0; i < 6; ++i) {
-                matrices.push();
-                if (i == 1) {
-                    matrices.multiply(RotationAxis.POSITIVE_X.rotationDegrees(90.0F));
-                } else if (i == 2) {
-                    matrices.multiply(RotationAxis.POSITIVE_X.rotationDegrees(-90.0F));
-                    matrices.multiply(RotationAxis.POSITIVE_Y.rotationDegrees(180.0F));
-                } else if (i == 3) {
-                    matrices.multiply(RotationAxis.POSITIVE_X.rotationDegrees(180.0F));
-                } else if (i == 4) {
-                    matrices.multiply(RotationAxis.POSITIVE_Z.rotationDegrees(90.0F));
-                    matrices.multiply(RotationAxis.POSITIVE_Y.rotationDegrees(-90.0F));
-                } else if (i == 5) {
-                    matrices.multiply(RotationAxis.POSITIVE_Z.rotationDegrees(-90.0F));
-                    matrices.multiply(RotationAxis.POSITIVE_Y.rotationDegrees(90.0F));
-                }
-
-                Matrix4f matrix4f = matrices.peek().getPositionMatrix();
-                bufferBuilder.vertex(matrix4f, -100.0F, -100.0F, -100.0F).color(this.color.getRed(), this.color.getGreen(), this.color.getBlue(), this.alpha).next();
-                bufferBuilder.vertex(matrix4f, -100.0F, -100.0F, 100.0F).color(this.color.getRed(), this.color.getGreen(), this.color.getBlue(), this.alpha).next();
-                bufferBuilder.vertex(matrix4f, 100.0F, -100.0F, 100.0F).color(this.color.getRed(), this.color.getGreen(), this.color.getBlue(), this.alpha).next();
-                bufferBuilder.vertex(matrix4f, 100.0F, -100.0F, -100.0F).color(this.color.getRed(), this.color.getGreen(), this.color.getBlue(), this.alpha).next();
-                matrices.pop();
-            }
-            BufferRenderer.drawWithGlobalProgram(bufferBuilder.end());
+            // The cube is white, tint it with the color on top of the shader color of the blend
+            RenderQueue.getInstance().submit(SkyboxGeometry.getColorCube(this.cubeSlot), null, this.blend, this.alpha, matrices, this.color.getRed(), this.color.getGreen(), this.color.getBlue(), this.alpha);
 
+            BufferBuilder bufferBuilder = Tessellator.getInstance().getBuffer();
             this.renderDecorations(worldRendererAccess, matrices, projectionMatrix, tickDelta, bufferBuilder, this.alpha, fogCallback);
-
-            RenderSystem.disableBlend();
-            RenderSystem.depthMask(true);
         }
     }
 
+    @Override
+    public boolean isQueued() {
+        return true;
+    }
+
+    @Override
+    public boolean isOpaque() {
+        return this.alpha >= 1.0F && this.blend.isOpaque();
+    }
+
     public RGBA getColor() {
         return this.color;
     }
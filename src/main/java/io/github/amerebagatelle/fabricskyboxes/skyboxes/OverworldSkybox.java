@@ -6,6 +6,7 @@ import com.mojang.serialization.codecs.RecordCodecBuilder;
 import io.github.amerebagatelle.fabricskyboxes.SkyboxManager;
 import io.github.amerebagatelle.fabricskyboxes.api.skyboxes.Skybox;
 import io.github.amerebagatelle.fabricskyboxes.mixin.skybox.WorldRendererAccess;
+import io.github.amerebagatelle.fabricskyboxes.util.SkyRenderState;
 import io.github.amerebagatelle.fabricskyboxes.util.object.Conditions;
 import io.github.amerebagatelle.fabricskyboxes.util.object.Decorations;
 import io.github.amerebagatelle.fabricskyboxes.util.object.Properties;
@@ -50,17 +51,20 @@ public class OverworldSkybox extends AbstractSkybox {
         float g = (float) vec3d.y;
         float h = (float) vec3d.z;
         BackgroundRenderer.applyFogColor();
-        RenderSystem.depthMask(false);
+        SkyRenderState state = SkyRenderState.getInstance();
+        state.depthMask(false);
+        state.disableBlend();
+        state.defaultBlendFunc();
 
         // Light Sky
-        RenderSystem.setShaderColor(f, g, h, this.alpha);
+        state.shaderColor(f, g, h, this.alpha);
         ShaderProgram shaderProgram = RenderSystem.getShader();
         worldRendererAccess.getLightSkyBuffer().bind();
         worldRendererAccess.getLightSkyBuffer().draw(matrices.peek().getPositionMatrix(), projectionMatrix, shaderProgram);
         VertexBuffer.unbind();
 
 
-        RenderSystem.enableBlend();
+        state.enableBlend();
         float skyAngle = world.getSkyAngle(tickDelta);
         float skyAngleRadian = world.getSkyAngleRadians(tickDelta);
 
@@ -71,8 +75,8 @@ public class OverworldSkybox extends AbstractSkybox {
 
         float[] fs = world.getDimensionEffects().getFogColorOverride(skyAngle, tickDelta);
         if (fs != null) {
-            RenderSystem.setShader(GameRenderer::getPositionColorProgram);
-            RenderSystem.setShaderColor(1.0F, 1.0F, 1.0F, 1.0F);
+            state.shader(GameRenderer::getPositionColorProgram);
+            state.shaderColor(1.0F, 1.0F, 1.0F, 1.0F);
             matrices.push();
             matrices.multiply(RotationAxis.POSITIVE_X.rotationDegrees(90.0F));
             float i = MathHelper.sin(skyAngleRadian) < 0.0F ? 180.0F : 0.0F;
@@ -100,7 +104,9 @@ public class OverworldSkybox extends AbstractSkybox {
         this.renderDecorations(worldRendererAccess, matrices, projectionMatrix, tickDelta, bufferBuilder, this.alpha, fogCallback);
 
         // Dark Sky
-        RenderSystem.setShaderColor(0.0F, 0.0F, 0.0F, 1.0F);
+        state.disableBlend();
+        state.defaultBlendFunc();
+        state.shaderColor(0.0F, 0.0F, 0.0F, 1.0F);
         double d = client.player.getCameraPosVec(tickDelta).y - world.getLevelProperties().getSkyDarknessHeight(world);
         if (d < 0.0) {
             matrices.push();
@@ -110,10 +116,5 @@ public class OverworldSkybox extends AbstractSkybox {
             VertexBuffer.unbind();
             matrices.pop();
         }
-        RenderSystem.setShaderColor(1.0F, 1.0F, 1.0F, 1.0F);
-
-
-        RenderSystem.depthMask(true);
-        RenderSystem.disableBlend();
     }
 }
@@ -2,10 +2,12 @@ package io.github.amerebagatelle.fabricskyboxes.skyboxes.textured;
 
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
+import io.github.amerebagatelle.fabricskyboxes.SkyboxManager;
 import io.github.amerebagatelle.fabricskyboxes.api.skyboxes.Skybox;
 import io.github.amerebagatelle.fabricskyboxes.mixin.skybox.WorldRendererAccess;
 import io.github.amerebagatelle.fabricskyboxes.skyboxes.AbstractSkybox;
 import io.github.amerebagatelle.fabricskyboxes.skyboxes.SkyboxType;
+import io.github.amerebagatelle.fabricskyboxes.util.TextureOpacity;
 import io.github.amerebagatelle.fabricskyboxes.util.object.*;
 import net.minecraft.client.render.Camera;
 import net.minecraft.client.util.math.MatrixStack;
@@ -25,7 +27,10 @@ public class AnimatedSquareTexturedSkybox extends SquareTexturedSkybox {
     private final float fps;
     private final long frameTimeMillis;
     private int count = 0;
-    private long lastTime = 0L;
+    /**
+     * The milliseconds the current frame has been shown for.
+     */
+    private long frameTime = 0L;
 
     public AnimatedSquareTexturedSkybox(Properties properties, Conditions conditions, Decorations decorations, Blend blend, List<Textures> animationTextures, float fps) {
         super(properties, conditions, decorations, blend, null);
@@ -45,21 +50,31 @@ public class AnimatedSquareTexturedSkybox extends SquareTexturedSkybox {
 
     @Override
     public void renderSkybox(WorldRendererAccess worldRendererAccess, MatrixStack matrices, float tickDelta, Camera camera, boolean thickFog, Runnable runnable) {
-        if (this.lastTime == 0L) this.lastTime = System.currentTimeMillis();
         this.textures = this.getAnimationTextures().get(this.count);
 
         super.renderSkybox(worldRendererAccess, matrices, tickDelta, camera, thickFog, runnable);
 
-        if (System.currentTimeMillis() >= (this.lastTime + this.frameTimeMillis)) {
-            if (this.count < this.getAnimationTextures().size()) {
-                if (this.count + 1 == this.getAnimationTextures().size()) {
-                    this.count = 0;
-                } else {
-                    this.count++;
-                }
+        this.frameTime += SkyboxManager.getInstance().getAnimationClock().getFrameDelta();
+        if (this.frameTime >= this.frameTimeMillis) {
+            this.count = (this.count + 1) % this.getAnimationTextures().size();
+            this.frameTime = 0L;
+        }
+    }
+
+    /**
+     * The frame changes while rendering, so the skybox is only opaque if every frame is.
+     */
+    @Override
+    public boolean isOpaque() {
+        if (this.alpha < 1.0F || !this.blend.isOpaque()) {
+            return false;
+        }
+        for (Textures frame : this.animationTextures) {
+            if (!TextureOpacity.isOpaque(frame)) {
+                return false;
             }
-            this.lastTime = System.currentTimeMillis();
         }
+        return true;
     }
 
     public List<Textures> getAnimationTextures() {
@@ -3,17 +3,31 @@ package io.github.amerebagatelle.fabricskyboxes.skyboxes.textured;
 import com.mojang.blaze3d.systems.RenderSystem;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
+import io.github.amerebagatelle.fabricskyboxes.SkyboxManager;
 import io.github.amerebagatelle.fabricskyboxes.api.skyboxes.Skybox;
 import io.github.amerebagatelle.fabricskyboxes.mixin.skybox.WorldRendererAccess;
 import io.github.amerebagatelle.fabricskyboxes.skyboxes.AbstractSkybox;
 import io.github.amerebagatelle.fabricskyboxes.skyboxes.SkyboxType;
+import io.github.amerebagatelle.fabricskyboxes.util.RenderStats;
+import io.github.amerebagatelle.fabricskyboxes.util.SkyRenderState;
+import io.github.amerebagatelle.fabricskyboxes.util.SkyboxGeometry;
+import io.github.amerebagatelle.fabricskyboxes.util.SkyboxShaders;
+import io.github.amerebagatelle.fabricskyboxes.util.TextureOpacity;
 import io.github.amerebagatelle.fabricskyboxes.util.Utils;
 import io.github.amerebagatelle.fabricskyboxes.util.object.*;
+import it.unimi.dsi.fastutil.floats.FloatArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.minecraft.client.gl.GlUniform;
+import net.minecraft.client.gl.ShaderProgram;
+import net.minecraft.client.gl.VertexBuffer;
 import net.minecraft.client.render.*;
 import net.minecraft.client.util.math.MatrixStack;
 import net.minecraft.util.Util;
-import net.minecraft.util.math.RotationAxis;
+import org.jetbrains.annotations.Nullable;
 import org.joml.Matrix4f;
+import org.joml.Matrix4fc;
+import org.joml.Vector3f;
+import org.joml.Vector4f;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -31,6 +45,18 @@ public class MultiTextureSkybox extends TexturedSkybox {
 
     private final float quadSize = 100F;
     private final UVRange quad = new UVRange(-this.quadSize, -this.quadSize, this.quadSize, this.quadSize);
+    /**
+     * The non-empty parts of the faces covered by each animation, in the order of {@link #animations}.
+     * Each part is a quad in skybox space whose UVs are its place within a frame of the animation.
+     */
+    private final float[][] layerVertices;
+    /**
+     * The face of each part in {@link #layerVertices}.
+     */
+    private final int[][] layerFaces;
+    private final SkyboxGeometry.Slot[] layerSlots;
+    private final Matrix4f modelViewProjection = new Matrix4f();
+    private final Vector4f color = new Vector4f();
 
     public MultiTextureSkybox(Properties properties, Conditions conditions, Decorations decorations, Blend blend, List<Animation> animations) {
         super(properties, conditions, decorations, blend);
@@ -43,6 +69,46 @@ public class MultiTextureSkybox extends TexturedSkybox {
                 new UVRange(1.0F / 3.0F, 0, 2.0F / 3.0F, 1.0F / 2.0F),
                 new UVRange(0, 0, 1.0F / 3.0F, 1.0F / 2.0F)
         ));
+        this.layerVertices = new float[animations.size()][];
+        this.layerFaces = new int[animations.size()][];
+        this.layerSlots = new SkyboxGeometry.Slot[animations.size()];
+        for (int i = 0; i < animations.size(); i++) {
+            this.createLayers(i, animations.get(i));
+            this.layerSlots[i] = new SkyboxGeometry.Slot();
+        }
+    }
+
+    private void createLayers(int index, Animation animation) {
+        FloatArrayList vertices = new FloatArrayList();
+        IntArrayList faces = new IntArrayList();
+        Vector3f position = new Vector3f();
+        for (int face = 0; face < 6; face++) {
+            UVRange faceUVRange = this.uvRanges.byId(face);
+            UVRange intersect = Utils.findUVIntersection(faceUVRange, animation.getUvRanges());
+            if (intersect == null || intersect.getMaxU() <= intersect.getMinU() || intersect.getMaxV() <= intersect.getMinV()) {
+                continue;
+            }
+            UVRange intersectionOnCurrentTexture = Utils.mapUVRanges(faceUVRange, this.quad, intersect);
+            // Where the intersection lies within the animation, the same place is drawn from each frame
+            UVRange intersectionOnFrame = Utils.mapUVRanges(animation.getUvRanges(), new UVRange(0, 0, 1, 1), intersect);
+
+            Matrix4fc transform = SkyboxGeometry.getFaceTransform(face);
+            putVertex(vertices, transform.transformPosition(intersectionOnCurrentTexture.getMinU(), -this.quadSize, intersectionOnCurrentTexture.getMinV(), position), intersectionOnFrame.getMinU(), intersectionOnFrame.getMinV());
+            putVertex(vertices, transform.transformPosition(intersectionOnCurrentTexture.getMinU(), -this.quadSize, intersectionOnCurrentTexture.getMaxV(), position), intersectionOnFrame.getMinU(), intersectionOnFrame.getMaxV());
+            putVertex(vertices, transform.transformPosition(intersectionOnCurrentTexture.getMaxU(), -this.quadSize, intersectionOnCurrentTexture.getMaxV(), position), intersectionOnFrame.getMaxU(), intersectionOnFrame.getMaxV());
+            putVertex(vertices, transform.transformPosition(intersectionOnCurrentTexture.getMaxU(), -this.quadSize, intersectionOnCurrentTexture.getMinV(), position), intersectionOnFrame.getMaxU(), intersectionOnFrame.getMinV());
+            faces.add(face);
+        }
+        this.layerVertices[index] = vertices.toFloatArray();
+        this.layerFaces[index] = faces.toIntArray();
+    }
+
+    private static void putVertex(FloatArrayList vertices, Vector3f position, float u, float v) {
+        vertices.add(position.x());
+        vertices.add(position.y());
+        vertices.add(position.z());
+        vertices.add(u);
+        vertices.add(v);
     }
 
     @Override
@@ -52,59 +118,111 @@ public class MultiTextureSkybox extends TexturedSkybox {
 
     @Override
     public void renderSkybox(WorldRendererAccess worldRendererAccess, MatrixStack matrices, float tickDelta, Camera camera, boolean thickFog, Runnable runnable) {
+        // Animations advance once per frame, independent of how many faces are visible
+        long delta = SkyboxManager.getInstance().getAnimationClock().getFrameDelta();
+        for (Animation animation : this.animations) {
+            animation.tick(delta);
+        }
+        Matrix4f matrix4f = matrices.peek().getPositionMatrix();
+        Matrix4f modelViewProjection = RenderSystem.getProjectionMatrix().mul(matrix4f, this.modelViewProjection);
+        int visibleFaces = 0;
         for (int i = 0; i < 6; ++i) {
-            // 0 = bottom
-            // 1 = north
-            // 2 = south
-            // 3 = top
-            // 4 = east
-            // 5 = west
-            UVRange faceUVRange = this.uvRanges.byId(i);
-            matrices.push();
-
-            if (i == 1) {
-                matrices.multiply(RotationAxis.POSITIVE_X.rotationDegrees(90.0F));
-            } else if (i == 2) {
-                matrices.multiply(RotationAxis.POSITIVE_X.rotationDegrees(-90.0F));
-                matrices.multiply(RotationAxis.POSITIVE_Y.rotationDegrees(180.0F));
-            } else if (i == 3) {
-                matrices.multiply(RotationAxis.POSITIVE_X.rotationDegrees(180.0F));
-            } else if (i == 4) {
-                matrices.multiply(RotationAxis.POSITIVE_Z.rotationDegrees(90.0F));
-                matrices.multiply(RotationAxis.POSITIVE_Y.rotationDegrees(-90.0F));
-            } else if (i == 5) {
-                matrices.multiply(RotationAxis.POSITIVE_Z.rotationDegrees(-90.0F));
-                matrices.multiply(RotationAxis.POSITIVE_Y.rotationDegrees(90.0F));
+            // 0 = bottom, 1 = north, 2 = south, 3 = top, 4 = east, 5 = west
+            if (SkyboxGeometry.isFaceVisible(i, modelViewProjection)) {
+                visibleFaces |= 1 << i;
+            } else {
+                RenderStats.getInstance().recordCulledFace();
             }
+        }
 
-            Matrix4f matrix4f = matrices.peek().getPositionMatrix();
+        ShaderProgram shader = SkyboxShaders.getAnimatedLayer();
+        for (int i = 0; i < this.layerVertices.length; i++) {
+            Animation animation = this.animations.get(i);
+            if (animation.getCurrentFrame() == null || !this.isAnyVisible(this.layerFaces[i], visibleFaces)) {
+                continue;
+            }
+            RenderSystem.setShaderTexture(0, animation.getTexture().getTextureId());
+            if (shader != null) {
+                this.drawStatic(i, animation, shader, matrix4f);
+            } else {
+                this.drawDynamic(i, animation, visibleFaces, matrix4f);
+            }
+            RenderStats.getInstance().recordDrawCall();
+        }
+    }
 
-            // animations
-            for (Animation animation : this.animations) {
-                Tessellator tessellator = Tessellator.getInstance();
-                BufferBuilder bufferBuilder = tessellator.getBuffer();
+    private boolean isAnyVisible(int[] faces, int visibleFaces) {
+        for (int face : faces) {
+            if ((visibleFaces & 1 << face) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-                bufferBuilder.begin(VertexFormat.DrawMode.QUADS, VertexFormats.POSITION_TEXTURE);
+    /**
+     * Draws all parts of an animation from their static buffer, the shader picks the frame.
+     * The whole buffer is one draw, so its culled parts are left to the GPU.
+     */
+    private void drawStatic(int index, Animation animation, ShaderProgram shader, Matrix4f matrix4f) {
+        setUniform(shader.getUniform("GridSize"), animation.getGridColumns(), animation.getGridRows());
+        setUniform(shader.getUniform("FrameIndex"), animation.getFrameIndex());
+        setUniform(shader.getUniform("NextFrameIndex"), animation.getNextFrameIndex());
+        setUniform(shader.getUniform("FrameBlend"), animation.getFrameProgress());
+        VertexBuffer buffer = SkyboxGeometry.getQuads(this.layerSlots[index], this.layerVertices[index]).getBuffer();
+        buffer.bind();
+        buffer.draw(matrix4f, RenderSystem.getProjectionMatrix(), shader);
+        VertexBuffer.unbind();
+    }
+
+    private static void setUniform(@Nullable GlUniform uniform, float... values) {
+        if (uniform != null) {
+            uniform.set(values);
+        }
+    }
 
-                animation.tick();
-                UVRange intersect = Utils.findUVIntersection(faceUVRange, animation.getUvRanges()); // todo: cache this intersections so we don't waste gpu cycles
-                if (intersect != null && animation.getCurrentFrame() != null) {
-                    UVRange intersectionOnCurrentTexture = Utils.mapUVRanges(faceUVRange, this.quad, intersect);
-                    UVRange intersectionOnCurrentFrame = Utils.mapUVRanges(animation.getUvRanges(), animation.getCurrentFrame(), intersect);
+    /**
+     * Writes the visible parts of an animation with the UVs of its current frame, used if the shader is not available.
+     * <p>
+     * Drawing the next frame over the current one only matches the fade of the shader for an opaque
+     * texture drawn over what is below at full alpha. Otherwise the frames cut.
+     */
+    private void drawDynamic(int index, Animation animation, int visibleFaces, Matrix4f matrix4f) {
+        this.drawFrame(index, animation.getCurrentFrame(), visibleFaces, matrix4f);
+        float progress = animation.getFrameProgress();
+        if (progress > 0.0F && this.canFadeDynamic(animation)) {
+            SkyRenderState state = SkyRenderState.getInstance();
+            Vector4f color = this.blend.getShaderColor(this.alpha * progress, this.color);
+            state.shaderColor(color.x(), color.y(), color.z(), color.w());
+            this.drawFrame(index, animation.getNextFrame(), visibleFaces, matrix4f);
+            color = this.blend.getShaderColor(this.alpha, this.color);
+            state.shaderColor(color.x(), color.y(), color.z(), color.w());
+            RenderStats.getInstance().recordDrawCall();
+        }
+    }
 
-                    // Render the quad at the calculated position
-                    RenderSystem.setShaderTexture(0, animation.getTexture().getTextureId());
+    private boolean canFadeDynamic(Animation animation) {
+        String blend = this.blend.getType();
+        return this.alpha >= 1.0F && (blend.isEmpty() || blend.equals("alpha")) && TextureOpacity.isOpaque(animation.getTexture().getTextureId());
+    }
 
-                    bufferBuilder.vertex(matrix4f, intersectionOnCurrentTexture.getMinU(), -this.quadSize, intersectionOnCurrentTexture.getMinV()).texture(intersectionOnCurrentFrame.getMinU(), intersectionOnCurrentFrame.getMinV()).next();
-                    bufferBuilder.vertex(matrix4f, intersectionOnCurrentTexture.getMinU(), -this.quadSize, intersectionOnCurrentTexture.getMaxV()).texture(intersectionOnCurrentFrame.getMinU(), intersectionOnCurrentFrame.getMaxV()).next();
-                    bufferBuilder.vertex(matrix4f, intersectionOnCurrentTexture.getMaxU(), -this.quadSize, intersectionOnCurrentTexture.getMaxV()).texture(intersectionOnCurrentFrame.getMaxU(), intersectionOnCurrentFrame.getMaxV()).next();
-                    bufferBuilder.vertex(matrix4f, intersectionOnCurrentTexture.getMaxU(), -this.quadSize, intersectionOnCurrentTexture.getMinV()).texture(intersectionOnCurrentFrame.getMaxU(), intersectionOnCurrentFrame.getMinV()).next();
-                }
-                BufferRenderer.drawWithGlobalProgram(bufferBuilder.end());
+    private void drawFrame(int index, UVRange frame, int visibleFaces, Matrix4f matrix4f) {
+        float frameWidth = frame.getMaxU() - frame.getMinU();
+        float frameHeight = frame.getMaxV() - frame.getMinV();
+        float[] vertices = this.layerVertices[index];
+        int[] faces = this.layerFaces[index];
+        BufferBuilder bufferBuilder = Tessellator.getInstance().getBuffer();
+        bufferBuilder.begin(VertexFormat.DrawMode.QUADS, VertexFormats.POSITION_TEXTURE);
+        for (int layer = 0; layer < faces.length; layer++) {
+            if ((visibleFaces & 1 << faces[layer]) == 0) {
+                continue;
+            }
+            int end = (layer + 1) * 4 * SkyboxGeometry.FLOATS_PER_VERTEX;
+            for (int j = layer * 4 * SkyboxGeometry.FLOATS_PER_VERTEX; j < end; j += SkyboxGeometry.FLOATS_PER_VERTEX) {
+                bufferBuilder.vertex(matrix4f, vertices[j], vertices[j + 1], vertices[j + 2]).texture(frame.getMinU() + vertices[j + 3] * frameWidth, frame.getMinV() + vertices[j + 4] * frameHeight).next();
             }
-
-            matrices.pop();
         }
+        BufferRenderer.drawWithGlobalProgram(bufferBuilder.end());
     }
 
     public List<Animation> getAnimations() {
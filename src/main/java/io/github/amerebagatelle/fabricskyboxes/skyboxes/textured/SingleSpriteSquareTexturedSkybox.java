@@ -1,17 +1,17 @@
 package io.github.amerebagatelle.fabricskyboxes.skyboxes.textured;
 
-import com.mojang.blaze3d.systems.RenderSystem;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import io.github.amerebagatelle.fabricskyboxes.api.skyboxes.Skybox;
 import io.github.amerebagatelle.fabricskyboxes.mixin.skybox.WorldRendererAccess;
 import io.github.amerebagatelle.fabricskyboxes.skyboxes.AbstractSkybox;
 import io.github.amerebagatelle.fabricskyboxes.skyboxes.SkyboxType;
+import io.github.amerebagatelle.fabricskyboxes.util.RenderQueue;
+import io.github.amerebagatelle.fabricskyboxes.util.SkyboxGeometry;
+import io.github.amerebagatelle.fabricskyboxes.util.TextureOpacity;
 import io.github.amerebagatelle.fabricskyboxes.util.object.*;
-import net.minecraft.client.render.*;
+import net.minecraft.client.render.Camera;
 import net.minecraft.client.util.math.MatrixStack;
-import net.minecraft.util.math.RotationAxis;
-import org.joml.Matrix4f;
 
 public class SingleSpriteSquareTexturedSkybox extends TexturedSkybox {
     public static Codec<SingleSpriteSquareTexturedSkybox> CODEC = RecordCodecBuilder.create(instance -> instance.group(
@@ -24,6 +24,7 @@ public class SingleSpriteSquareTexturedSkybox extends TexturedSkybox {
     protected Texture texture;
 
     private final UVRanges uvRanges;
+    private final SkyboxGeometry.Slot cubeSlot = new SkyboxGeometry.Slot();
 
     public SingleSpriteSquareTexturedSkybox(Properties properties, Conditions conditions, Decorations decorations, Blend blend, Texture texture) {
         super(properties, conditions, decorations, blend);
@@ -47,44 +48,25 @@ public class SingleSpriteSquareTexturedSkybox extends TexturedSkybox {
         return this.texture;
     }
 
+    /**
+     * @return The UVs of the faces within the texture
+     */
+    public UVRanges getUvRanges() {
+        return this.uvRanges;
+    }
+
     @Override
     public void renderSkybox(WorldRendererAccess worldRendererAccess, MatrixStack matrices, float tickDelta, Camera camera, boolean thickFog, Runnable runnable) {
-        Tessellator tessellator = Tessellator.getInstance();
-        BufferBuilder bufferBuilder = tessellator.getBuffer();
-        bufferBuilder.begin(VertexFormat.DrawMode.QUADS, VertexFormats.POSITION_TEXTURE);
-        RenderSystem.setShaderTexture(0, texture.getTextureId());
-        for (int i = 0; i < 6; ++i) {
-            // 0 = bottom
-            // 1 = north
-            // 2 = south
-            // 3 = top
-            // 4 = east
-            // 5 = west
-            UVRange tex = this.uvRanges.byId(i);
-            matrices.push();
+        RenderQueue.getInstance().submit(SkyboxGeometry.getCube(this.cubeSlot, this.uvRanges), this.texture.getTextureId(), this.blend, this.alpha, matrices);
+    }
 
-            if (i == 1) {
-                matrices.multiply(RotationAxis.POSITIVE_X.rotationDegrees(90.0F));
-            } else if (i == 2) {
-                matrices.multiply(RotationAxis.POSITIVE_X.rotationDegrees(-90.0F));
-                matrices.multiply(RotationAxis.POSITIVE_Y.rotationDegrees(180.0F));
-            } else if (i == 3) {
-                matrices.multiply(RotationAxis.POSITIVE_X.rotationDegrees(180.0F));
-            } else if (i == 4) {
-                matrices.multiply(RotationAxis.POSITIVE_Z.rotationDegrees(90.0F));
-                matrices.multiply(RotationAxis.POSITIVE_Y.rotationDegrees(-90.0F));
-            } else if (i == 5) {
-                matrices.multiply(RotationAxis.POSITIVE_Z.rotationDegrees(-90.0F));
-                matrices.multiply(RotationAxis.POSITIVE_Y.rotationDegrees(90.0F));
-            }
+    @Override
+    public boolean isQueued() {
+        return true;
+    }
 
-            Matrix4f matrix4f = matrices.peek().getPositionMatrix();
-            bufferBuilder.vertex(matrix4f, -100.0F, -100.0F, -100.0F).texture(tex.getMinU(), tex.getMinV()).next();
-            bufferBuilder.vertex(matrix4f, -100.0F, -100.0F, 100.0F).texture(tex.getMinU(), tex.getMaxV()).next();
-            bufferBuilder.vertex(matrix4f, 100.0F, -100.0F, 100.0F).texture(tex.getMaxU(), tex.getMaxV()).next();
-            bufferBuilder.vertex(matrix4f, 100.0F, -100.0F, -100.0F).texture(tex.getMaxU(), tex.getMinV()).next();
-            matrices.pop();
-        }
-        BufferRenderer.drawWithGlobalProgram(bufferBuilder.end());
+    @Override
+    public boolean isOpaque() {
+        return this.alpha >= 1.0F && this.blend.isOpaque() && TextureOpacity.isOpaque(this.texture.getTextureId());
     }
 }
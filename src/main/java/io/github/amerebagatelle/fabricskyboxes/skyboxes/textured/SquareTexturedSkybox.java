@@ -3,16 +3,24 @@ package io.github.amerebagatelle.fabricskyboxes.skyboxes.textured;
 import com.mojang.blaze3d.systems.RenderSystem;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
+import io.github.amerebagatelle.fabricskyboxes.FabricSkyBoxesClient;
 import io.github.amerebagatelle.fabricskyboxes.api.skyboxes.Skybox;
 import io.github.amerebagatelle.fabricskyboxes.mixin.skybox.WorldRendererAccess;
 import io.github.amerebagatelle.fabricskyboxes.skyboxes.AbstractSkybox;
 import io.github.amerebagatelle.fabricskyboxes.skyboxes.SkyboxType;
+import io.github.amerebagatelle.fabricskyboxes.util.CubeAtlas;
+import io.github.amerebagatelle.fabricskyboxes.util.RenderQueue;
+import io.github.amerebagatelle.fabricskyboxes.util.RenderStats;
+import io.github.amerebagatelle.fabricskyboxes.util.SkyboxGeometry;
+import io.github.amerebagatelle.fabricskyboxes.util.TextureOpacity;
 import io.github.amerebagatelle.fabricskyboxes.util.object.*;
-import net.minecraft.client.render.*;
+import net.minecraft.client.render.Camera;
 import net.minecraft.client.util.math.MatrixStack;
-import net.minecraft.util.math.RotationAxis;
+import net.minecraft.util.Util;
 import org.joml.Matrix4f;
 
+import java.util.Arrays;
+
 public class SquareTexturedSkybox extends TexturedSkybox {
     public static Codec<SquareTexturedSkybox> CODEC = RecordCodecBuilder.create(instance -> instance.group(
             Properties.CODEC.fieldOf("properties").forGetter(AbstractSkybox::getProperties),
@@ -22,6 +30,9 @@ public class SquareTexturedSkybox extends TexturedSkybox {
             Textures.CODEC.fieldOf("textures").forGetter(s -> s.textures)
     ).apply(instance, SquareTexturedSkybox::new));
     public Textures textures;
+    private final SkyboxGeometry.Slot[] faceSlots = Util.make(new SkyboxGeometry.Slot[6], slots -> Arrays.setAll(slots, i -> new SkyboxGeometry.Slot()));
+    private final SkyboxGeometry.Slot atlasSlot = new SkyboxGeometry.Slot();
+    private final Matrix4f modelViewProjection = new Matrix4f();
 
     public SquareTexturedSkybox() {
     }
@@ -38,8 +49,15 @@ public class SquareTexturedSkybox extends TexturedSkybox {
 
     @Override
     public void renderSkybox(WorldRendererAccess worldRendererAccess, MatrixStack matrices, float tickDelta, Camera camera, boolean thickFog, Runnable runnable) {
-        Tessellator tessellator = Tessellator.getInstance();
-        BufferBuilder bufferBuilder = tessellator.getBuffer();
+        CubeAtlas atlas = FabricSkyBoxesClient.config().generalSettings.stitchTextures ? CubeAtlas.get(this.textures) : null;
+        if (atlas != null) {
+            RenderQueue.getInstance().submit(SkyboxGeometry.getCube(this.atlasSlot, atlas.getUvRanges()), atlas.getTextureId(), this.blend, this.alpha, matrices);
+            RenderStats.getInstance().recordSavedDrawCalls(5);
+            return;
+        }
+
+        // The atlas is a single draw with a single texture, only separate faces are worth culling
+        Matrix4f modelViewProjection = RenderSystem.getProjectionMatrix().mul(matrices.peek().getPositionMatrix(), this.modelViewProjection);
         for (int i = 0; i < 6; ++i) {
             // 0 = bottom
             // 1 = north
@@ -47,33 +65,22 @@ public class SquareTexturedSkybox extends TexturedSkybox {
             // 3 = top
             // 4 = east
             // 5 = west
+            if (!SkyboxGeometry.isFaceVisible(i, modelViewProjection)) {
+                RenderStats.getInstance().recordCulledFace();
+                continue;
+            }
             Texture tex = this.textures.byId(i);
-            RenderSystem.setShaderTexture(0, tex.getTextureId());
-            bufferBuilder.begin(VertexFormat.DrawMode.QUADS, VertexFormats.POSITION_TEXTURE);
-            matrices.push();
+            RenderQueue.getInstance().submit(SkyboxGeometry.getFace(this.faceSlots[i], i, tex), tex.getTextureId(), this.blend, this.alpha, matrices);
+        }
+    }
 
-            if (i == 1) {
-                matrices.multiply(RotationAxis.POSITIVE_X.rotationDegrees(90.0F));
-            } else if (i == 2) {
-                matrices.multiply(RotationAxis.POSITIVE_X.rotationDegrees(-90.0F));
-                matrices.multiply(RotationAxis.POSITIVE_Y.rotationDegrees(180.0F));
-            } else if (i == 3) {
-                matrices.multiply(RotationAxis.POSITIVE_X.rotationDegrees(180.0F));
-            } else if (i == 4) {
-                matrices.multiply(RotationAxis.POSITIVE_Z.rotationDegrees(90.0F));
-                matrices.multiply(RotationAxis.POSITIVE_Y.rotationDegrees(-90.0F));
-            } else if (i == 5) {
-                matrices.multiply(RotationAxis.POSITIVE_Z.rotationDegrees(-90.0F));
-                matrices.multiply(RotationAxis.POSITIVE_Y.rotationDegrees(90.0F));
-            }
+    @Override
+    public boolean isQueued() {
+        return true;
+    }
 
-            Matrix4f matrix4f = matrices.peek().getPositionMatrix();
-            bufferBuilder.vertex(matrix4f, -100.0F, -100.0F, -100.0F).texture(tex.getMinU(), tex.getMinV()).next();
-            bufferBuilder.vertex(matrix4f, -100.0F, -100.0F, 100.0F).texture(tex.getMinU(), tex.getMaxV()).next();
-            bufferBuilder.vertex(matrix4f, 100.0F, -100.0F, 100.0F).texture(tex.getMaxU(), tex.getMaxV()).next();
-            bufferBuilder.vertex(matrix4f, 100.0F, -100.0F, -100.0F).texture(tex.getMaxU(), tex.getMinV()).next();
-            matrices.pop();
-            BufferRenderer.drawWithGlobalProgram(bufferBuilder.end());
-        }
+    @Override
+    public boolean isOpaque() {
+        return this.alpha >= 1.0F && this.blend.isOpaque() && TextureOpacity.isOpaque(this.textures);
     }
 }
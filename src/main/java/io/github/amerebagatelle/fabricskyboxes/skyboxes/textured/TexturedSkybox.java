@@ -1,10 +1,9 @@
 package io.github.amerebagatelle.fabricskyboxes.skyboxes.textured;
 
-import com.mojang.blaze3d.systems.RenderSystem;
 import io.github.amerebagatelle.fabricskyboxes.api.skyboxes.RotatableSkybox;
 import io.github.amerebagatelle.fabricskyboxes.mixin.skybox.WorldRendererAccess;
 import io.github.amerebagatelle.fabricskyboxes.skyboxes.AbstractSkybox;
-import io.github.amerebagatelle.fabricskyboxes.util.Utils;
+import io.github.amerebagatelle.fabricskyboxes.util.SkyRenderState;
 import io.github.amerebagatelle.fabricskyboxes.util.object.*;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.render.BufferBuilder;
@@ -13,9 +12,7 @@ import net.minecraft.client.render.GameRenderer;
 import net.minecraft.client.render.Tessellator;
 import net.minecraft.client.util.math.MatrixStack;
 import net.minecraft.client.world.ClientWorld;
-import net.minecraft.util.math.RotationAxis;
 import org.joml.Matrix4f;
-import org.joml.Vector3f;
 
 import java.util.Objects;
 
@@ -41,38 +38,30 @@ public abstract class TexturedSkybox extends AbstractSkybox implements Rotatable
      */
     @Override
     public final void render(WorldRendererAccess worldRendererAccess, MatrixStack matrixStack, Matrix4f projectionMatrix, float tickDelta, Camera camera, boolean thickFog, Runnable fogCallback) {
-        RenderSystem.depthMask(false);
-        RenderSystem.enableBlend();
-
-        RenderSystem.setShader(GameRenderer::getPositionTexProgram);
-        this.blend.applyBlendFunc(this.alpha);
+        if (this.alpha <= 0) {
+            return;
+        }
+        // Queued skyboxes pass their state to the queue instead
+        if (!this.isQueued()) {
+            SkyRenderState state = SkyRenderState.getInstance();
+            state.depthMask(false);
+            state.enableBlend();
+
+            state.shader(GameRenderer::getPositionTexProgram);
+            this.blend.applyBlendFunc(this.alpha);
+        }
 
         ClientWorld world = Objects.requireNonNull(MinecraftClient.getInstance().world);
 
-        Vector3f rotationStatic = this.rotation.getStatic();
-
         matrixStack.push();
-
-        // axis + time rotation
-        double timeRotationX = Utils.calculateRotation(this.rotation.getRotationSpeedX(), this.rotation.getTimeShift().x(), this.rotation.getSkyboxRotation(), world);
-        double timeRotationY = Utils.calculateRotation(this.rotation.getRotationSpeedY(), this.rotation.getTimeShift().y(), this.rotation.getSkyboxRotation(), world);
-        double timeRotationZ = Utils.calculateRotation(this.rotation.getRotationSpeedZ(), this.rotation.getTimeShift().z(), this.rotation.getSkyboxRotation(), world);
-        this.applyTimeRotation(matrixStack, (float) timeRotationX, (float) timeRotationY, (float) timeRotationZ);
-        // static
-        matrixStack.multiply(RotationAxis.POSITIVE_X.rotationDegrees(rotationStatic.x()));
-        matrixStack.multiply(RotationAxis.POSITIVE_Y.rotationDegrees(rotationStatic.y()));
-        matrixStack.multiply(RotationAxis.POSITIVE_Z.rotationDegrees(rotationStatic.z()));
+        // axis + time + static rotation
+        matrixStack.multiply(this.rotation.getQuaternion(world));
         this.renderSkybox(worldRendererAccess, matrixStack, tickDelta, camera, thickFog, fogCallback);
         matrixStack.pop();
 
         BufferBuilder bufferBuilder = Tessellator.getInstance().getBuffer();
 
         this.renderDecorations(worldRendererAccess, matrixStack, projectionMatrix, tickDelta, bufferBuilder, this.alpha, fogCallback);
-
-        RenderSystem.depthMask(true);
-        RenderSystem.disableBlend();
-        // fixme:
-        RenderSystem.setShaderColor(1.0F, 1.0F, 1.0F, 1.0F);
     }
 
     /**
@@ -80,20 +69,6 @@ public abstract class TexturedSkybox extends AbstractSkybox implements Rotatable
      */
     public abstract void renderSkybox(WorldRendererAccess worldRendererAccess, MatrixStack matrixStack, float tickDelta, Camera camera, boolean thickFog, Runnable runnable);
 
-    private void applyTimeRotation(MatrixStack matrixStack, float timeRotationX, float timeRotationY, float timeRotationZ) {
-        // Very ugly, find a better way to do this
-        Vector3f timeRotationAxis = this.rotation.getAxis();
-        matrixStack.multiply(RotationAxis.POSITIVE_X.rotationDegrees(timeRotationAxis.x()));
-        matrixStack.multiply(RotationAxis.POSITIVE_Y.rotationDegrees(timeRotationAxis.y()));
-        matrixStack.multiply(RotationAxis.POSITIVE_Z.rotationDegrees(timeRotationAxis.z()));
-        matrixStack.multiply(RotationAxis.POSITIVE_X.rotationDegrees(timeRotationX));
-        matrixStack.multiply(RotationAxis.POSITIVE_Y.rotationDegrees(timeRotationY));
-        matrixStack.multiply(RotationAxis.POSITIVE_Z.rotationDegrees(timeRotationZ));
-        matrixStack.multiply(RotationAxis.NEGATIVE_Z.rotationDegrees(timeRotationAxis.z()));
-        matrixStack.multiply(RotationAxis.NEGATIVE_Y.rotationDegrees(timeRotationAxis.y()));
-        matrixStack.multiply(RotationAxis.NEGATIVE_X.rotationDegrees(timeRotationAxis.x()));
-    }
-
     public Blend getBlend() {
         return this.blend;
     }
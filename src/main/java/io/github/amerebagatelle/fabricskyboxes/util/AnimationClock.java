@@ -0,0 +1,45 @@
+package io.github.amerebagatelle.fabricskyboxes.util;
+
+/**
+ * The time the skybox animations follow, advanced once per frame by the skybox manager.
+ * <p>
+ * The clock stands still while the game is paused. Skyboxes advance their animations by
+ * {@link #getFrameDelta()} when they render, so the animations of inactive skyboxes pause too.
+ * Tests can drive the clock with their own time.
+ */
+public final class AnimationClock {
+    private long lastRealTime = -1L;
+    private long time = 0L;
+    private long frameDelta = 0L;
+
+    /**
+     * @param realTime The current real time in milliseconds
+     * @param paused   Whether the game is paused, the clock does not advance then
+     */
+    public void advance(long realTime, boolean paused) {
+        long delta = this.lastRealTime < 0L ? 0L : Math.max(realTime - this.lastRealTime, 0L);
+        this.lastRealTime = realTime;
+        this.frameDelta = paused ? 0L : delta;
+        this.time += this.frameDelta;
+    }
+
+    /**
+     * @return The milliseconds the animations ran for so far
+     */
+    public long getTime() {
+        return this.time;
+    }
+
+    /**
+     * @return The milliseconds the animations advance by in the current frame
+     */
+    public long getFrameDelta() {
+        return this.frameDelta;
+    }
+
+    public void reset() {
+        this.lastRealTime = -1L;
+        this.time = 0L;
+        this.frameDelta = 0L;
+    }
+}
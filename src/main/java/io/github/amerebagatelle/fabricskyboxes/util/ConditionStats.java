@@ -0,0 +1,140 @@
+package io.github.amerebagatelle.fabricskyboxes.util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Global statistics of the condition checks of all skyboxes, per {@link ConditionType}.
+ * <p>
+ * Every evaluation and rejection is counted, the time a check takes is sampled. The statistics
+ * periodically rank the checks so that cheap checks which reject often run first.
+ */
+public final class ConditionStats {
+    /**
+     * Every n-th condition evaluation of a skybox is timed.
+     */
+    public static final int SAMPLE_INTERVAL = 16;
+    private static final int RANKING_INTERVAL = 200;
+    private static final ConditionStats INSTANCE = new ConditionStats();
+
+    private final LongAdder[] evaluations = createAdders();
+    private final LongAdder[] rejections = createAdders();
+    private final LongAdder[] samples = createAdders();
+    private final LongAdder[] sampledNanos = createAdders();
+    private volatile ConditionType[] ranking = ConditionType.VALUES.clone();
+    private volatile int version = 0;
+    private int ticks = 0;
+
+    /**
+     * Creates statistics independent of the global ones, which the skyboxes use through {@link #getInstance()}.
+     */
+    public ConditionStats() {
+    }
+
+    public static ConditionStats getInstance() {
+        return INSTANCE;
+    }
+
+    private static LongAdder[] createAdders() {
+        LongAdder[] adders = new LongAdder[ConditionType.VALUES.length];
+        Arrays.setAll(adders, i -> new LongAdder());
+        return adders;
+    }
+
+    public void record(ConditionType type, boolean result) {
+        this.evaluations[type.ordinal()].increment();
+        if (!result) {
+            this.rejections[type.ordinal()].increment();
+        }
+    }
+
+    public void recordSample(ConditionType type, boolean result, long nanos) {
+        this.record(type, result);
+        this.samples[type.ordinal()].increment();
+        this.sampledNanos[type.ordinal()].add(nanos);
+    }
+
+    /**
+     * Called once per tick, re-ranks the checks every {@value #RANKING_INTERVAL} ticks.
+     */
+    public void tick() {
+        if (++this.ticks >= RANKING_INTERVAL) {
+            this.ticks = 0;
+            this.updateRanking();
+        }
+    }
+
+    private void updateRanking() {
+        double[] scores = new double[ConditionType.VALUES.length];
+        for (ConditionType type : ConditionType.VALUES) {
+            scores[type.ordinal()] = this.getScore(type);
+        }
+        ConditionType[] ranking = ConditionType.VALUES.clone();
+        Arrays.sort(ranking, Comparator.comparingDouble(type -> scores[type.ordinal()]));
+        if (!Arrays.equals(ranking, this.ranking)) {
+            this.ranking = ranking;
+            this.version++;
+        }
+    }
+
+    /**
+     * The expected cost of a check per rejection, lower scores are evaluated first.
+     */
+    private double getScore(ConditionType type) {
+        long evaluations = this.getEvaluations(type);
+        // Unmeasured checks keep their default order behind measured ones of similar cost
+        double cost = this.samples[type.ordinal()].sum() > 0 ? this.getAverageNanos(type) : 1000D + type.ordinal();
+        double rejectionRate = evaluations > 0 ? (double) this.getRejections(type) / evaluations : 0.5D;
+        return cost / Math.max(rejectionRate, 0.01D);
+    }
+
+    /**
+     * @return The check types ordered by ascending cost per rejection
+     */
+    public ConditionType[] getRanking() {
+        return this.ranking;
+    }
+
+    /**
+     * @return A counter that changes whenever the ranking changes
+     */
+    public int getVersion() {
+        return this.version;
+    }
+
+    public long getEvaluations(ConditionType type) {
+        return this.evaluations[type.ordinal()].sum();
+    }
+
+    public long getRejections(ConditionType type) {
+        return this.rejections[type.ordinal()].sum();
+    }
+
+    /**
+     * @return The average sampled duration of a check in nanoseconds, 0 if it was never sampled
+     */
+    public double getAverageNanos(ConditionType type) {
+        long samples = this.samples[type.ordinal()].sum();
+        return samples > 0 ? (double) this.sampledNanos[type.ordinal()].sum() / samples : 0D;
+    }
+
+    /**
+     * @return The estimated total time spent in a check in nanoseconds
+     */
+    public double getTotalNanos(ConditionType type) {
+        return this.getAverageNanos(type) * this.getEvaluations(type);
+    }
+
+    public void reset() {
+        for (int i = 0; i < ConditionType.VALUES.length; i++) {
+            this.evaluations[i].reset();
+            this.rejections[i].reset();
+            this.samples[i].reset();
+            this.sampledNanos[i].reset();
+        }
+        this.ranking = ConditionType.VALUES.clone();
+        this.version++;
+        this.ticks = 0;
+    }
+}
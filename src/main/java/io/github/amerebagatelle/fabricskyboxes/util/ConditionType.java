@@ -0,0 +1,67 @@
+package io.github.amerebagatelle.fabricskyboxes.util;
+
+/**
+ * The individual checks that make up the conditions of a skybox, in evaluation order.
+ * Each check declares the {@link SkyContext} change flags of the inputs it reads.
+ */
+public enum ConditionType {
+    DIMENSIONS(SkyContext.DIMENSION),
+    WORLDS(SkyContext.DIMENSION),
+    BIOMES(SkyContext.BIOME),
+    X_RANGES(SkyContext.POSITION_X),
+    Y_RANGES(SkyContext.POSITION_Y),
+    Z_RANGES(SkyContext.POSITION_Z),
+    WEATHER(SkyContext.WEATHER | SkyContext.BIOME),
+    EFFECTS(SkyContext.EFFECTS),
+    /**
+     * Depends on the world time, which changes every tick.
+     */
+    LOOP(0);
+
+    public static final ConditionType[] VALUES = values();
+    private static final int[] INVALIDATED = new int[SkyContext.ALL + 1];
+
+    static {
+        for (int changes = 0; changes <= SkyContext.ALL; changes++) {
+            int invalidated = 0;
+            for (ConditionType type : VALUES) {
+                if (!type.isCacheable() || (type.dependencies & changes) != 0) {
+                    invalidated |= type.getMask();
+                }
+            }
+            INVALIDATED[changes] = invalidated;
+        }
+    }
+
+    private final int dependencies;
+
+    ConditionType(int dependencies) {
+        this.dependencies = dependencies;
+    }
+
+    /**
+     * @param changes The change flags of a tick
+     * @return The mask of every check whose result may differ after the given changes
+     */
+    public static int getInvalidated(int changes) {
+        return INVALIDATED[changes & SkyContext.ALL];
+    }
+
+    /**
+     * @return The change flags of the inputs this check reads
+     */
+    public int getDependencies() {
+        return this.dependencies;
+    }
+
+    /**
+     * @return Whether the result of this check can be reused as long as its inputs do not change
+     */
+    public boolean isCacheable() {
+        return this.dependencies != 0;
+    }
+
+    public int getMask() {
+        return 1 << this.ordinal();
+    }
+}
@@ -0,0 +1,139 @@
+package io.github.amerebagatelle.fabricskyboxes.util;
+
+import com.mojang.blaze3d.systems.RenderSystem;
+import io.github.amerebagatelle.fabricskyboxes.FabricSkyBoxesClient;
+import io.github.amerebagatelle.fabricskyboxes.util.object.Texture;
+import io.github.amerebagatelle.fabricskyboxes.util.object.Textures;
+import io.github.amerebagatelle.fabricskyboxes.util.object.UVRange;
+import io.github.amerebagatelle.fabricskyboxes.util.object.UVRanges;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.texture.NativeImage;
+import net.minecraft.client.texture.NativeImageBackedTexture;
+import net.minecraft.resource.Resource;
+import net.minecraft.resource.ResourceManager;
+import net.minecraft.util.Identifier;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The six faces of a {@link Textures} stitched into a single texture, laid out in the 3x2 grid
+ * of the single sprite skyboxes. A square textured skybox can then bind one texture and draw
+ * its whole cube at once.
+ * <p>
+ * Stitching requires all face images to have the same size. Otherwise, or if an image cannot
+ * be read, the skybox keeps drawing its faces one by one.
+ */
+public final class CubeAtlas {
+    private static final Map<Textures, Optional<CubeAtlas>> ATLASES = new Reference2ObjectOpenHashMap<>();
+    private static int nextId = 0;
+
+    private final Identifier textureId;
+    private final UVRanges uvRanges;
+
+    private CubeAtlas(Identifier textureId, UVRanges uvRanges) {
+        this.textureId = textureId;
+        this.uvRanges = uvRanges;
+    }
+
+    /**
+     * Stitches the textures the first time they are requested.
+     *
+     * @param textures The textures of a skybox
+     * @return The atlas of the textures, or null if they cannot be stitched
+     */
+    @Nullable
+    public static CubeAtlas get(Textures textures) {
+        RenderSystem.assertOnRenderThread();
+        Optional<CubeAtlas> atlas = ATLASES.get(textures);
+        if (atlas == null) {
+            atlas = Optional.ofNullable(stitch(textures));
+            ATLASES.put(textures, atlas);
+        }
+        return atlas.orElse(null);
+    }
+
+    @Nullable
+    private static CubeAtlas stitch(Textures textures) {
+        ResourceManager resourceManager = MinecraftClient.getInstance().getResourceManager();
+        Map<Identifier, NativeImage> images = new Object2ObjectOpenHashMap<>();
+        try {
+            for (int i = 0; i < 6; i++) {
+                Identifier id = textures.byId(i).getTextureId();
+                if (!images.containsKey(id)) {
+                    Optional<Resource> resource = resourceManager.getResource(id);
+                    if (resource.isEmpty()) {
+                        return null;
+                    }
+                    try (InputStream stream = resource.get().getInputStream()) {
+                        images.put(id, NativeImage.read(NativeImage.Format.RGBA, stream));
+                    }
+                }
+            }
+
+            NativeImage first = images.get(textures.byId(0).getTextureId());
+            int width = first.getWidth();
+            int height = first.getHeight();
+            for (NativeImage image : images.values()) {
+                if (image.getWidth() != width || image.getHeight() != height) {
+                    if (FabricSkyBoxesClient.config().generalSettings.debugMode) {
+                        FabricSkyBoxesClient.getLogger().info("Not stitching textures of mismatched sizes: " + images.keySet());
+                    }
+                    return null;
+                }
+            }
+            int maxSize = RenderSystem.maxSupportedTextureSize();
+            if (width * 3 > maxSize || height * 2 > maxSize) {
+                return null;
+            }
+
+            NativeImage atlas = new NativeImage(width * 3, height * 2, false);
+            UVRange[] uvs = new UVRange[6];
+            for (int i = 0; i < 6; i++) {
+                Texture face = textures.byId(i);
+                int column = i % 3;
+                int row = i / 3;
+                images.get(face.getTextureId()).copyRect(atlas, 0, 0, column * width, row * height, width, height, false, false);
+                uvs[i] = new UVRange((column + face.getMinU()) / 3.0F, (row + face.getMinV()) / 2.0F, (column + face.getMaxU()) / 3.0F, (row + face.getMaxV()) / 2.0F);
+            }
+
+            Identifier textureId = new Identifier(FabricSkyBoxesClient.MODID, "atlas/" + nextId++);
+            MinecraftClient.getInstance().getTextureManager().registerTexture(textureId, new NativeImageBackedTexture(atlas));
+            return new CubeAtlas(textureId, new UVRanges(uvs[1], uvs[2], uvs[4], uvs[5], uvs[3], uvs[0]));
+        } catch (IOException e) {
+            FabricSkyBoxesClient.getLogger().error("Failed to stitch skybox textures " + images.keySet(), e);
+            return null;
+        } finally {
+            images.values().forEach(NativeImage::close);
+        }
+    }
+
+    /**
+     * Frees every atlas, textures are stitched again when they are next requested.
+     */
+    public static void clear() {
+        RenderSystem.assertOnRenderThread();
+        ATLASES.values().forEach(atlas -> atlas.ifPresent(value -> MinecraftClient.getInstance().getTextureManager().destroyTexture(value.textureId)));
+        ATLASES.clear();
+    }
+
+    public static boolean isEmpty() {
+        return ATLASES.isEmpty();
+    }
+
+    public Identifier getTextureId() {
+        return this.textureId;
+    }
+
+    /**
+     * @return The UVs of the faces within the atlas
+     */
+    public UVRanges getUvRanges() {
+        return this.uvRanges;
+    }
+}
@@ -0,0 +1,191 @@
+package io.github.amerebagatelle.fabricskyboxes.util;
+
+import com.mojang.blaze3d.systems.RenderSystem;
+import io.github.amerebagatelle.fabricskyboxes.util.object.Blend;
+import net.minecraft.client.gl.ShaderProgram;
+import net.minecraft.client.gl.VertexBuffer;
+import net.minecraft.client.render.BufferBuilder;
+import net.minecraft.client.render.BufferRenderer;
+import net.minecraft.client.render.GameRenderer;
+import net.minecraft.client.render.Tessellator;
+import net.minecraft.client.render.VertexConsumer;
+import net.minecraft.client.render.VertexFormat;
+import net.minecraft.client.render.VertexFormats;
+import net.minecraft.client.util.math.MatrixStack;
+import net.minecraft.util.Identifier;
+import org.jetbrains.annotations.Nullable;
+import org.joml.Matrix4f;
+import org.joml.Vector4f;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Collects the geometry draws of the skyboxes of a frame in priority order.
+ * <p>
+ * Adjacent packets with the same shape, texture and blend need the same GL state, so they are
+ * drawn together: the state is applied once and their vertices are written into one buffer,
+ * with the alpha of each skybox moved from the shader color into the vertex color. Packets are
+ * never reordered, so layers keep their order regardless of their blend modes. Anything that
+ * draws outside the queue must {@link #flush()} it first.
+ */
+public final class RenderQueue {
+    private static final RenderQueue INSTANCE = new RenderQueue();
+
+    private final Vector4f color = new Vector4f();
+    private Packet[] packets = new Packet[0];
+    private int size = 0;
+
+    public static RenderQueue getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Queues a mesh to be drawn with the transforms of the skybox.
+     *
+     * @param mesh     The mesh
+     * @param texture  The texture of the mesh, null if it has none
+     * @param blend    The blend of the skybox
+     * @param alpha    The alpha of the skybox, applied like the blend applies it to the shader color
+     * @param matrices The transforms of the skybox
+     * @param red      Red tint on top of the blend
+     * @param green    Green tint on top of the blend
+     * @param blue     Blue tint on top of the blend
+     * @param tint     Alpha tint on top of the blend
+     */
+    public void submit(SkyboxGeometry.Mesh mesh, @Nullable Identifier texture, Blend blend, float alpha, MatrixStack matrices, float red, float green, float blue, float tint) {
+        RenderSystem.assertOnRenderThread();
+        if (this.size == this.packets.length) {
+            this.packets = Arrays.copyOf(this.packets, Math.max(8, this.size * 2));
+            for (int i = this.size; i < this.packets.length; i++) {
+                this.packets[i] = new Packet();
+            }
+        }
+        Packet packet = this.packets[this.size++];
+        packet.mesh = mesh;
+        packet.texture = texture;
+        packet.blend = blend;
+        packet.modelView.set(matrices.peek().getPositionMatrix());
+        blend.getShaderColor(alpha, this.color).mul(red, green, blue, tint);
+        packet.red = this.color.x();
+        packet.green = this.color.y();
+        packet.blue = this.color.z();
+        packet.alpha = this.color.w();
+    }
+
+    /**
+     * @param mesh     The mesh
+     * @param texture  The texture of the mesh, null if it has none
+     * @param blend    The blend of the skybox
+     * @param alpha    The alpha of the skybox
+     * @param matrices The transforms of the skybox
+     * @see #submit(SkyboxGeometry.Mesh, Identifier, Blend, float, MatrixStack, float, float, float, float)
+     */
+    public void submit(SkyboxGeometry.Mesh mesh, @Nullable Identifier texture, Blend blend, float alpha, MatrixStack matrices) {
+        this.submit(mesh, texture, blend, alpha, matrices, 1.0F, 1.0F, 1.0F, 1.0F);
+    }
+
+    /**
+     * Draws every queued packet. The GL state is left as the last packet needed it, see
+     * {@link SkyRenderState}.
+     */
+    public void flush() {
+        if (this.size == 0) {
+            return;
+        }
+        int start = 0;
+        for (int i = 1; i <= this.size; i++) {
+            if (i == this.size || !this.packets[i].hasSameState(this.packets[start])) {
+                this.draw(start, i);
+                start = i;
+            }
+        }
+        for (int i = 0; i < this.size; i++) {
+            this.packets[i].clear();
+        }
+        this.size = 0;
+    }
+
+    private void draw(int start, int end) {
+        Packet first = this.packets[start];
+        SkyboxGeometry.Shape shape = first.mesh.getShape();
+        SkyRenderState state = SkyRenderState.getInstance();
+        state.depthMask(false);
+        state.enableBlend();
+        first.blend.applyBlendState();
+        if (first.texture != null) {
+            RenderSystem.setShaderTexture(0, first.texture);
+        }
+
+        if (end - start == 1) {
+            // A single packet draws its static buffer
+            state.shader(getShader(shape));
+            state.shaderColor(first.red, first.green, first.blue, first.alpha);
+            VertexBuffer buffer = first.mesh.getBuffer();
+            buffer.bind();
+            buffer.draw(first.modelView, RenderSystem.getProjectionMatrix(), RenderSystem.getShader());
+            VertexBuffer.unbind();
+        } else {
+            state.shader(getCombinedShader(shape));
+            state.shaderColor(1.0F, 1.0F, 1.0F, 1.0F);
+            VertexFormat format = shape.hasTexture() ? VertexFormats.POSITION_TEXTURE_COLOR : VertexFormats.POSITION_COLOR;
+            float baseRed = (shape.getColor() >> 16 & 255) / 255.0F;
+            float baseGreen = (shape.getColor() >> 8 & 255) / 255.0F;
+            float baseBlue = (shape.getColor() & 255) / 255.0F;
+            BufferBuilder bufferBuilder = Tessellator.getInstance().getBuffer();
+            bufferBuilder.begin(VertexFormat.DrawMode.QUADS, format);
+            for (int i = start; i < end; i++) {
+                Packet packet = this.packets[i];
+                float[] vertices = packet.mesh.getVertices();
+                for (int j = 0; j < vertices.length; j += SkyboxGeometry.FLOATS_PER_VERTEX) {
+                    VertexConsumer vertex = bufferBuilder.vertex(packet.modelView, vertices[j], vertices[j + 1], vertices[j + 2]);
+                    if (shape.hasTexture()) {
+                        vertex.texture(vertices[j + 3], vertices[j + 4]);
+                    }
+                    vertex.color(baseRed * packet.red, baseGreen * packet.green, baseBlue * packet.blue, packet.alpha).next();
+                }
+            }
+            BufferRenderer.drawWithGlobalProgram(bufferBuilder.end());
+            RenderStats.getInstance().recordSavedDrawCalls(end - start - 1);
+        }
+        RenderStats.getInstance().recordDrawCall();
+    }
+
+    private static Supplier<ShaderProgram> getShader(SkyboxGeometry.Shape shape) {
+        return switch (shape) {
+            case TEXTURED -> GameRenderer::getPositionTexProgram;
+            case COLORED -> GameRenderer::getPositionColorProgram;
+            case END -> GameRenderer::getPositionTexColorProgram;
+        };
+    }
+
+    /**
+     * @return The shader of a combined draw, which reads the tint of each packet from the vertex color
+     */
+    private static Supplier<ShaderProgram> getCombinedShader(SkyboxGeometry.Shape shape) {
+        return shape.hasTexture() ? GameRenderer::getPositionTexColorProgram : GameRenderer::getPositionColorProgram;
+    }
+
+    private static final class Packet {
+        private final Matrix4f modelView = new Matrix4f();
+        private SkyboxGeometry.Mesh mesh;
+        @Nullable
+        private Identifier texture;
+        private Blend blend;
+        private float red;
+        private float green;
+        private float blue;
+        private float alpha;
+
+        private boolean hasSameState(Packet packet) {
+            return this.mesh.getShape() == packet.mesh.getShape() && Objects.equals(this.texture, packet.texture) && this.blend.equals(packet.blend);
+        }
+
+        private void clear() {
+            this.mesh = null;
+            this.texture = null;
+            this.blend = null;
+        }
+    }
+}
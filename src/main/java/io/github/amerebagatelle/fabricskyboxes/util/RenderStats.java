@@ -0,0 +1,118 @@
+package io.github.amerebagatelle.fabricskyboxes.util;
+
+/**
+ * Per-frame counters of the skybox rendering, shown in the debug hud.
+ * <p>
+ * Only touched from the render thread. The values of a frame become visible once the next
+ * frame begins, so the hud always shows a complete frame.
+ */
+public final class RenderStats {
+    private static final RenderStats INSTANCE = new RenderStats();
+
+    private int drawCalls = 0;
+    private int savedDrawCalls = 0;
+    private int lastDrawCalls = 0;
+    private int lastSavedDrawCalls = 0;
+    private int culledFaces = 0;
+    private int lastCulledFaces = 0;
+    private int stateChanges = 0;
+    private int skippedStateChanges = 0;
+    private int lastStateChanges = 0;
+    private int lastSkippedStateChanges = 0;
+    private int hiddenLayers = 0;
+    private int lastHiddenLayers = 0;
+
+    public static RenderStats getInstance() {
+        return INSTANCE;
+    }
+
+    public void beginFrame() {
+        this.lastDrawCalls = this.drawCalls;
+        this.lastSavedDrawCalls = this.savedDrawCalls;
+        this.lastCulledFaces = this.culledFaces;
+        this.lastStateChanges = this.stateChanges;
+        this.lastSkippedStateChanges = this.skippedStateChanges;
+        this.lastHiddenLayers = this.hiddenLayers;
+        this.drawCalls = 0;
+        this.savedDrawCalls = 0;
+        this.culledFaces = 0;
+        this.stateChanges = 0;
+        this.skippedStateChanges = 0;
+        this.hiddenLayers = 0;
+    }
+
+    public void recordDrawCall() {
+        this.drawCalls++;
+    }
+
+    /**
+     * @param count The amount of draw calls avoided by stitching or combining draws
+     */
+    public void recordSavedDrawCalls(int count) {
+        this.savedDrawCalls += count;
+    }
+
+    public void recordCulledFace() {
+        this.culledFaces++;
+    }
+
+    /**
+     * @param count The amount of skyboxes not drawn because an opaque skybox above them hides them
+     */
+    public void recordHiddenLayers(int count) {
+        this.hiddenLayers += count;
+    }
+
+    /**
+     * @param issued Whether the state change was applied, false if it was skipped as redundant
+     */
+    public void recordStateChange(boolean issued) {
+        if (issued) {
+            this.stateChanges++;
+        } else {
+            this.skippedStateChanges++;
+        }
+    }
+
+    /**
+     * @return The amount of geometry draw calls of the skyboxes in the last frame
+     */
+    public int getDrawCalls() {
+        return this.lastDrawCalls;
+    }
+
+    /**
+     * @return The amount of draw calls avoided in the last frame
+     */
+    public int getSavedDrawCalls() {
+        return this.lastSavedDrawCalls;
+    }
+
+    /**
+     * @return The amount of skybox faces skipped in the last frame because they were outside the view
+     */
+    public int getCulledFaces() {
+        return this.lastCulledFaces;
+    }
+
+    /**
+     * @return The amount of GL state changes applied in the last frame
+     */
+    public int getStateChanges() {
+        return this.lastStateChanges;
+    }
+
+    /**
+     * @return The amount of redundant GL state changes skipped in the last frame
+     */
+    public int getSkippedStateChanges() {
+        return this.lastSkippedStateChanges;
+    }
+
+    /**
+     * @return The amount of skyboxes hidden by an opaque skybox in the last frame
+     */
+    public int getHiddenLayers() {
+        return this.lastHiddenLayers;
+    }
+}
@@ -0,0 +1,408 @@
+package io.github.amerebagatelle.fabricskyboxes.util;
+
+import com.google.common.collect.ImmutableSet;
+import io.github.amerebagatelle.fabricskyboxes.util.object.Weather;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.network.ClientPlayerEntity;
+import net.minecraft.client.render.Camera;
+import net.minecraft.client.render.CameraSubmersionType;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.entity.effect.StatusEffectInstance;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.Registry;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.biome.Biome;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.BitSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of the world state that skybox conditions are evaluated against.
+ * <p>
+ * One snapshot is captured per tick by the skybox manager and shared by every skybox,
+ * so the cost of querying the world does not scale with the amount of skyboxes.
+ * Snapshots can also be created without a running client through {@link Builder}.
+ */
+public class SkyContext {
+    /**
+     * Change flag for the biome under the player, including its precipitation.
+     */
+    public static final int BIOME = 1;
+    /**
+     * Change flag for the rain and thunder state.
+     */
+    public static final int WEATHER = 1 << 1;
+    /**
+     * Change flags for the player position, one per axis.
+     */
+    public static final int POSITION_X = 1 << 2;
+    public static final int POSITION_Y = 1 << 3;
+    public static final int POSITION_Z = 1 << 4;
+    public static final int POSITION = POSITION_X | POSITION_Y | POSITION_Z;
+    /**
+     * Change flag for the active effects, camera submersion and thick fog.
+     */
+    public static final int EFFECTS = 1 << 5;
+    /**
+     * Change flag for the dimension and dimension effects.
+     */
+    public static final int DIMENSION = 1 << 6;
+    public static final int ALL = BIOME | WEATHER | POSITION | EFFECTS | DIMENSION;
+
+    private final long timeOfDay;
+    private final double x;
+    private final double y;
+    private final double z;
+    private final Identifier biome;
+    private final int biomeRawId;
+    private final Biome.Precipitation precipitation;
+    private final boolean raining;
+    private final boolean thundering;
+    private final Identifier dimension;
+    private final Identifier dimensionEffects;
+    private final CameraSubmersionType submersionType;
+    private final Set<Identifier> effects;
+    /**
+     * Raw ids of the active effects in the status effect registry, never modified.
+     */
+    private final BitSet effectRawIds;
+    private final boolean thickFog;
+    private final int weatherMask;
+    private final int changes;
+
+    public SkyContext(long timeOfDay, double x, double y, double z, Identifier biome, int biomeRawId, Biome.Precipitation precipitation, boolean raining, boolean thundering, Identifier dimension, Identifier dimensionEffects, CameraSubmersionType submersionType, Set<Identifier> effects, boolean thickFog) {
+        this(timeOfDay, x, y, z, biome, biomeRawId, precipitation, raining, thundering, dimension, dimensionEffects, submersionType, effects, new BitSet(), thickFog);
+    }
+
+    public SkyContext(long timeOfDay, double x, double y, double z, Identifier biome, int biomeRawId, Biome.Precipitation precipitation, boolean raining, boolean thundering, Identifier dimension, Identifier dimensionEffects, CameraSubmersionType submersionType, Set<Identifier> effects, BitSet effectRawIds, boolean thickFog) {
+        this.timeOfDay = timeOfDay;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.biome = biome;
+        this.biomeRawId = biomeRawId;
+        this.precipitation = precipitation;
+        this.raining = raining;
+        this.thundering = thundering;
+        this.dimension = dimension;
+        this.dimensionEffects = dimensionEffects;
+        this.submersionType = submersionType;
+        this.effects = ImmutableSet.copyOf(effects);
+        this.effectRawIds = (BitSet) effectRawIds.clone();
+        this.thickFog = thickFog;
+        this.weatherMask = computeWeatherMask(precipitation, raining, thundering);
+        this.changes = ALL;
+    }
+
+    private SkyContext(SkyContext context, int changes) {
+        this.timeOfDay = context.timeOfDay;
+        this.x = context.x;
+        this.y = context.y;
+        this.z = context.z;
+        this.biome = context.biome;
+        this.biomeRawId = context.biomeRawId;
+        this.precipitation = context.precipitation;
+        this.raining = context.raining;
+        this.thundering = context.thundering;
+        this.dimension = context.dimension;
+        this.dimensionEffects = context.dimensionEffects;
+        this.submersionType = context.submersionType;
+        this.effects = context.effects;
+        this.effectRawIds = context.effectRawIds;
+        this.thickFog = context.thickFog;
+        this.weatherMask = context.weatherMask;
+        this.changes = changes;
+    }
+
+    private static int computeWeatherMask(Biome.Precipitation precipitation, boolean raining, boolean thundering) {
+        int mask = 0;
+        if (thundering) {
+            mask |= Weather.THUNDER.getMask();
+        }
+        if (raining && !thundering) {
+            mask |= Weather.RAIN.getMask();
+        }
+        if (raining && precipitation == Biome.Precipitation.SNOW) {
+            mask |= Weather.SNOW.getMask();
+        }
+        if (raining && precipitation == Biome.Precipitation.RAIN) {
+            mask |= Weather.BIOME_RAIN.getMask();
+        }
+        if (!raining && !thundering) {
+            mask |= Weather.CLEAR.getMask();
+        }
+        return mask;
+    }
+
+    /**
+     * Captures the current state of the client world.
+     *
+     * @param client The Minecraft client
+     * @return The captured context, or null if there is no world or player
+     */
+    @Nullable
+    public static SkyContext capture(MinecraftClient client) {
+        ClientWorld world = client.world;
+        ClientPlayerEntity player = client.player;
+        if (world == null || player == null) {
+            return null;
+        }
+
+        BlockPos blockPos = player.getBlockPos();
+        RegistryEntry<Biome> biomeEntry = world.getBiome(blockPos);
+        Registry<Biome> biomeRegistry = world.getRegistryManager().get(RegistryKeys.BIOME);
+
+        Camera camera = client.gameRenderer.getCamera();
+        boolean thickFog = world.getDimensionEffects().useThickFog(MathHelper.floor(camera.getPos().getX()), MathHelper.floor(camera.getPos().getY())) || client.inGameHud.getBossBarHud().shouldThickenFog();
+
+        ImmutableSet.Builder<Identifier> effects = ImmutableSet.builder();
+        BitSet effectRawIds = new BitSet();
+        if (camera.getFocusedEntity() instanceof LivingEntity livingEntity) {
+            for (StatusEffectInstance instance : livingEntity.getStatusEffects()) {
+                instance.getEffectType().getKey().ifPresent(key -> effects.add(key.getValue()));
+                effectRawIds.set(Registries.STATUS_EFFECT.getRawId(instance.getEffectType().value()));
+            }
+        }
+
+        return new SkyContext(
+                world.getTimeOfDay(),
+                player.getX(),
+                player.getY(),
+                player.getZ(),
+                biomeRegistry.getId(biomeEntry.value()),
+                biomeRegistry.getRawId(biomeEntry.value()),
+                biomeEntry.value().getPrecipitation(blockPos),
+                world.isRaining(),
+                world.isThundering(),
+                world.getRegistryKey().getValue(),
+                world.getDimension().effects(),
+                camera.getSubmersionType(),
+                effects.build(),
+                effectRawIds,
+                thickFog
+        );
+    }
+
+    /**
+     * Compares this context with the one of the previous tick.
+     *
+     * @param previous The previous context, may be null
+     * @return The change flags of every input that differs, {@link #ALL} if there is no previous context
+     */
+    public int computeChanges(@Nullable SkyContext previous) {
+        if (previous == null) {
+            return ALL;
+        }
+        int changes = 0;
+        if (this.biomeRawId != previous.biomeRawId || !Objects.equals(this.biome, previous.biome) || this.precipitation != previous.precipitation) {
+            changes |= BIOME;
+        }
+        if (this.raining != previous.raining || this.thundering != previous.thundering) {
+            changes |= WEATHER;
+        }
+        if (this.x != previous.x) {
+            changes |= POSITION_X;
+        }
+        if (this.y != previous.y) {
+            changes |= POSITION_Y;
+        }
+        if (this.z != previous.z) {
+            changes |= POSITION_Z;
+        }
+        if (this.thickFog != previous.thickFog || this.submersionType != previous.submersionType || !this.effects.equals(previous.effects)) {
+            changes |= EFFECTS;
+        }
+        if (!this.dimension.equals(previous.dimension) || !this.dimensionEffects.equals(previous.dimensionEffects)) {
+            changes |= DIMENSION;
+        }
+        return changes;
+    }
+
+    /**
+     * Creates a copy of this context that reports the given inputs as changed.
+     *
+     * @param changes The change flags
+     * @return The new context
+     */
+    public SkyContext withChanges(int changes) {
+        return new SkyContext(this, changes);
+    }
+
+    /**
+     * @return The change flags of the inputs that changed since the previous tick, {@link #ALL} if unknown
+     */
+    public int getChanges() {
+        return this.changes;
+    }
+
+    public long getTimeOfDay() {
+        return this.timeOfDay;
+    }
+
+    public double getX() {
+        return this.x;
+    }
+
+    public double getY() {
+        return this.y;
+    }
+
+    public double getZ() {
+        return this.z;
+    }
+
+    @Nullable
+    public Identifier getBiome() {
+        return this.biome;
+    }
+
+    public int getBiomeRawId() {
+        return this.biomeRawId;
+    }
+
+    public Biome.Precipitation getPrecipitation() {
+        return this.precipitation;
+    }
+
+    public boolean isRaining() {
+        return this.raining;
+    }
+
+    public boolean isThundering() {
+        return this.thundering;
+    }
+
+    public Identifier getDimension() {
+        return this.dimension;
+    }
+
+    public Identifier getDimensionEffects() {
+        return this.dimensionEffects;
+    }
+
+    public CameraSubmersionType getSubmersionType() {
+        return this.submersionType;
+    }
+
+    public Set<Identifier> getEffects() {
+        return this.effects;
+    }
+
+    public boolean hasEffect(Identifier effect) {
+        return this.effects.contains(effect);
+    }
+
+    /**
+     * @param rawIds Raw ids in the status effect registry
+     * @return Whether any of the effects is active
+     */
+    public boolean hasAnyEffect(BitSet rawIds) {
+        return this.effectRawIds.intersects(rawIds);
+    }
+
+    public boolean isThickFog() {
+        return this.thickFog;
+    }
+
+    /**
+     * @return The mask of every {@link Weather} that currently applies
+     */
+    public int getWeatherMask() {
+        return this.weatherMask;
+    }
+
+    public static class Builder {
+        private long timeOfDay = 0;
+        private double x = 0;
+        private double y = 0;
+        private double z = 0;
+        private Identifier biome = new Identifier("plains");
+        private int biomeRawId = 0;
+        private Biome.Precipitation precipitation = Biome.Precipitation.RAIN;
+        private boolean raining = false;
+        private boolean thundering = false;
+        private Identifier dimension = new Identifier("overworld");
+        private Identifier dimensionEffects = new Identifier("overworld");
+        private CameraSubmersionType submersionType = CameraSubmersionType.NONE;
+        private Set<Identifier> effects = ImmutableSet.of();
+        private BitSet effectRawIds = new BitSet();
+        private boolean thickFog = false;
+
+        public Builder timeOfDay(long timeOfDay) {
+            this.timeOfDay = timeOfDay;
+            return this;
+        }
+
+        public Builder position(double x, double y, double z) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            return this;
+        }
+
+        public Builder biome(Identifier biome, int biomeRawId) {
+            this.biome = biome;
+            this.biomeRawId = biomeRawId;
+            return this;
+        }
+
+        public Builder precipitation(Biome.Precipitation precipitation) {
+            this.precipitation = precipitation;
+            return this;
+        }
+
+        public Builder raining(boolean raining) {
+            this.raining = raining;
+            return this;
+        }
+
+        public Builder thundering(boolean thundering) {
+            this.thundering = thundering;
+            return this;
+        }
+
+        public Builder dimension(Identifier dimension) {
+            this.dimension = dimension;
+            return this;
+        }
+
+        public Builder dimensionEffects(Identifier dimensionEffects) {
+            this.dimensionEffects = dimensionEffects;
+            return this;
+        }
+
+        public Builder submersionType(CameraSubmersionType submersionType) {
+            this.submersionType = submersionType;
+            return this;
+        }
+
+        public Builder effects(Identifier... effects) {
+            this.effects = ImmutableSet.copyOf(effects);
+            return this;
+        }
+
+        public Builder effectRawIds(int... effectRawIds) {
+            this.effectRawIds = new BitSet();
+            for (int rawId : effectRawIds) {
+                this.effectRawIds.set(rawId);
+            }
+            return this;
+        }
+
+        public Builder thickFog(boolean thickFog) {
+            this.thickFog = thickFog;
+            return this;
+        }
+
+        public SkyContext build() {
+            return new SkyContext(this.timeOfDay, this.x, this.y, this.z, this.biome, this.biomeRawId, this.precipitation, this.raining, this.thundering, this.dimension, this.dimensionEffects, this.submersionType, this.effects, this.effectRawIds, this.thickFog);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package io.github.amerebagatelle.fabricskyboxes.util;
+
+import com.mojang.blaze3d.platform.GlStateManager;
+import com.mojang.blaze3d.systems.RenderSystem;
+import net.minecraft.client.gl.ShaderProgram;
+import org.jetbrains.annotations.Nullable;
+import org.lwjgl.opengl.GL14;
+
+import java.util.function.Supplier;
+
+/**
+ * The GL state applied while the skyboxes render, so that applying a state that is already set
+ * can be skipped.
+ * <p>
+ * The state is unknown when the sky pass begins and is reset to the defaults once when it ends,
+ * rather than after every skybox. Outside the sky pass every call is passed on untracked.
+ */
+public final class SkyRenderState {
+    private static final int UNKNOWN = -1;
+    private static final SkyRenderState INSTANCE = new SkyRenderState();
+
+    private final float[] shaderColor = new float[4];
+    private boolean active = false;
+    private int blend;
+    private int sourceFactor;
+    private int destinationFactor;
+    private int sourceFactorAlpha;
+    private int destinationFactorAlpha;
+    private int equation;
+    private int depthMask;
+    private int colorMask;
+    @Nullable
+    private ShaderProgram shader;
+
+    private SkyRenderState() {
+        this.invalidate();
+    }
+
+    public static SkyRenderState getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts tracking, the state at the start of the sky pass is unknown.
+     */
+    public void begin() {
+        this.active = true;
+        this.invalidate();
+    }
+
+    /**
+     * Resets the state to the defaults and stops tracking.
+     */
+    public void end() {
+        this.reset();
+        this.active = false;
+    }
+
+    /**
+     * Applies the default state, which is what skyboxes that do not use the tracker expect.
+     */
+    public void reset() {
+        this.disableBlend();
+        this.defaultBlendFunc();
+        this.blendEquation(GL14.GL_FUNC_ADD);
+        this.depthMask(true);
+        this.colorMask(true, true, true, true);
+        this.shaderColor(1.0F, 1.0F, 1.0F, 1.0F);
+    }
+
+    /**
+     * Forgets the state, to be called after rendering code that changed it without the tracker.
+     */
+    public void invalidate() {
+        this.blend = UNKNOWN;
+        this.sourceFactor = UNKNOWN;
+        this.destinationFactor = UNKNOWN;
+        this.sourceFactorAlpha = UNKNOWN;
+        this.destinationFactorAlpha = UNKNOWN;
+        this.equation = UNKNOWN;
+        this.depthMask = UNKNOWN;
+        this.colorMask = UNKNOWN;
+        this.shader = null;
+        this.shaderColor[0] = Float.NaN;
+    }
+
+    private boolean change(boolean changed) {
+        if (!this.active) {
+            return true;
+        }
+        RenderStats.getInstance().recordStateChange(changed);
+        return changed;
+    }
+
+    public void enableBlend() {
+        if (this.change(this.blend != 1)) {
+            this.blend = 1;
+            RenderSystem.enableBlend();
+        }
+    }
+
+    public void disableBlend() {
+        if (this.change(this.blend != 0)) {
+            this.blend = 0;
+            RenderSystem.disableBlend();
+        }
+    }
+
+    public void blendFunc(int sourceFactor, int destinationFactor) {
+        if (this.change(this.sourceFactor != sourceFactor || this.destinationFactor != destinationFactor || this.sourceFactorAlpha != sourceFactor || this.destinationFactorAlpha != destinationFactor)) {
+            this.setFactors(sourceFactor, destinationFactor, sourceFactor, destinationFactor);
+            RenderSystem.blendFunc(sourceFactor, destinationFactor);
+        }
+    }
+
+    public void blendFunc(GlStateManager.SrcFactor sourceFactor, GlStateManager.DstFactor destinationFactor) {
+        this.blendFunc(sourceFactor.value, destinationFactor.value);
+    }
+
+    public void blendFuncSeparate(int sourceFactor, int destinationFactor, int sourceFactorAlpha, int destinationFactorAlpha) {
+        if (this.change(this.sourceFactor != sourceFactor || this.destinationFactor != destinationFactor || this.sourceFactorAlpha != sourceFactorAlpha || this.destinationFactorAlpha != destinationFactorAlpha)) {
+            this.setFactors(sourceFactor, destinationFactor, sourceFactorAlpha, destinationFactorAlpha);
+            RenderSystem.blendFuncSeparate(sourceFactor, destinationFactor, sourceFactorAlpha, destinationFactorAlpha);
+        }
+    }
+
+    /**
+     * The blend function of {@link RenderSystem#defaultBlendFunc()}.
+     */
+    public void defaultBlendFunc() {
+        this.blendFuncSeparate(GlStateManager.SrcFactor.SRC_ALPHA.value, GlStateManager.DstFactor.ONE_MINUS_SRC_ALPHA.value, GlStateManager.SrcFactor.ONE.value, GlStateManager.DstFactor.ZERO.value);
+    }
+
+    private void setFactors(int sourceFactor, int destinationFactor, int sourceFactorAlpha, int destinationFactorAlpha) {
+        this.sourceFactor = sourceFactor;
+        this.destinationFactor = destinationFactor;
+        this.sourceFactorAlpha = sourceFactorAlpha;
+        this.destinationFactorAlpha = destinationFactorAlpha;
+    }
+
+    public void blendEquation(int equation) {
+        if (this.change(this.equation != equation)) {
+            this.equation = equation;
+            RenderSystem.blendEquation(equation);
+        }
+    }
+
+    public void depthMask(boolean mask) {
+        int value = mask ? 1 : 0;
+        if (this.change(this.depthMask != value)) {
+            this.depthMask = value;
+            RenderSystem.depthMask(mask);
+        }
+    }
+
+    public void colorMask(boolean red, boolean green, boolean blue, boolean alpha) {
+        int value = (red ? 1 : 0) | (green ? 2 : 0) | (blue ? 4 : 0) | (alpha ? 8 : 0);
+        if (this.change(this.colorMask != value)) {
+            this.colorMask = value;
+            RenderSystem.colorMask(red, green, blue, alpha);
+        }
+    }
+
+    public void shader(Supplier<ShaderProgram> supplier) {
+        ShaderProgram shader = supplier.get();
+        if (this.change(shader == null || shader != this.shader)) {
+            this.shader = shader;
+            RenderSystem.setShader(supplier);
+        }
+    }
+
+    public void shaderColor(float red, float green, float blue, float alpha) {
+        // NaN never compares equal, so an unknown color is always applied
+        if (this.change(this.shaderColor[0] != red || this.shaderColor[1] != green || this.shaderColor[2] != blue || this.shaderColor[3] != alpha)) {
+            this.shaderColor[0] = red;
+            this.shaderColor[1] = green;
+            this.shaderColor[2] = blue;
+            this.shaderColor[3] = alpha;
+            RenderSystem.setShaderColor(red, green, blue, alpha);
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package io.github.amerebagatelle.fabricskyboxes.util;
+
+import com.mojang.blaze3d.platform.GlStateManager;
+import com.mojang.blaze3d.systems.RenderSystem;
+import io.github.amerebagatelle.fabricskyboxes.FabricSkyBoxesClient;
+import io.github.amerebagatelle.fabricskyboxes.api.skyboxes.Skybox;
+import io.github.amerebagatelle.fabricskyboxes.skyboxes.textured.SingleSpriteSquareTexturedSkybox;
+import io.github.amerebagatelle.fabricskyboxes.skyboxes.textured.SquareTexturedSkybox;
+import io.github.amerebagatelle.fabricskyboxes.skyboxes.textured.TexturedSkybox;
+import io.github.amerebagatelle.fabricskyboxes.util.object.Blend;
+import io.github.amerebagatelle.fabricskyboxes.util.object.Blender;
+import io.github.amerebagatelle.fabricskyboxes.util.object.Decorations;
+import io.github.amerebagatelle.fabricskyboxes.util.object.UVRange;
+import io.github.amerebagatelle.fabricskyboxes.util.object.UVRanges;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gl.SimpleFramebuffer;
+import net.minecraft.client.gl.VertexBuffer;
+import net.minecraft.client.render.BufferBuilder;
+import net.minecraft.client.render.GameRenderer;
+import net.minecraft.client.render.Tessellator;
+import net.minecraft.client.render.VertexFormat;
+import net.minecraft.client.render.VertexFormats;
+import net.minecraft.client.texture.AbstractTexture;
+import net.minecraft.client.util.math.MatrixStack;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.resource.ResourceManager;
+import net.minecraft.util.Identifier;
+import org.jetbrains.annotations.Nullable;
+import org.joml.Matrix4f;
+import org.joml.Quaternionf;
+import org.joml.Vector4f;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL30;
+
+import java.util.Arrays;
+
+/**
+ * Caches adjacent static square textured skyboxes as a single composite texture.
+ * <p>
+ * Layers without time rotation, animation or decorations that are blended over what is below
+ * them (the default and alpha blends) are rendered into an offscreen texture laid out like a
+ * {@link CubeAtlas}, with premultiplied alpha. The composite then draws as one cube. It is only
+ * rendered again when the layers or their alphas change, which happens at most once per tick.
+ */
+public final class SkyboxComposite {
+    private static final SkyboxComposite INSTANCE = new SkyboxComposite();
+    private static final Identifier TEXTURE_ID = new Identifier(FabricSkyBoxesClient.MODID, "composite");
+    private static final Matrix4f IDENTITY = new Matrix4f();
+    /**
+     * Draws the premultiplied composite over the sky.
+     */
+    private static final Blend PREMULTIPLIED = new Blend("custom", new Blender(false, GL11.GL_ONE, GL11.GL_ONE_MINUS_SRC_ALPHA, Blender.Equation.ADD.value, 0, 0, false, false, false, false));
+    private static final UVRanges UV_RANGES;
+
+    static {
+        UVRange[] uvs = new UVRange[6];
+        for (int i = 0; i < 6; i++) {
+            int column = i % 3;
+            int row = i / 3;
+            uvs[i] = new UVRange(column / 3.0F, row / 2.0F, (column + 1) / 3.0F, (row + 1) / 2.0F);
+        }
+        UV_RANGES = new UVRanges(uvs[1], uvs[2], uvs[4], uvs[5], uvs[3], uvs[0]);
+    }
+
+    private final SkyboxGeometry.Slot cubeSlot = new SkyboxGeometry.Slot();
+    private final Quaternionf rotation = new Quaternionf();
+    private final Vector4f color = new Vector4f();
+    private TexturedSkybox[] layers = new TexturedSkybox[0];
+    private float[] alphas = new float[0];
+    private int layerCount = 0;
+    private boolean valid = false;
+    private boolean drawn = false;
+    @Nullable
+    private SimpleFramebuffer framebuffer;
+    @Nullable
+    private VertexBuffer scratchBuffer;
+    private long hits = 0;
+    private long misses = 0;
+
+    public static SkyboxComposite getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return Whether the skybox can be part of a composite
+     */
+    public static boolean isCacheable(Skybox skybox) {
+        if ((skybox.getClass() != SquareTexturedSkybox.class && skybox.getClass() != SingleSpriteSquareTexturedSkybox.class) || !skybox.isActive()) {
+            return false;
+        }
+        TexturedSkybox textured = (TexturedSkybox) skybox;
+        Decorations decorations = textured.getDecorations();
+        String blend = textured.getBlend().getType();
+        return textured.getRotation().isTimeInvariant() && !decorations.isSunEnabled() && !decorations.isMoonEnabled() && !decorations.isStarsEnabled() && (blend.isEmpty() || blend.equals("alpha"));
+    }
+
+    /**
+     * Called before the skyboxes of a frame are rendered.
+     */
+    public void beginFrame() {
+        this.drawn = false;
+    }
+
+    /**
+     * Queues the composite of the cacheable layers starting at the given skybox, if there are
+     * at least two of them. Only the first such run of a frame is composited, so that separate
+     * runs do not replace each other's composite every frame.
+     *
+     * @param skyboxes The active skyboxes in priority order
+     * @param start    The index of the first skybox
+     * @param end      The amount of active skyboxes
+     * @param matrices The transforms of the sky
+     * @return The amount of skyboxes the composite replaces, 0 if it was not used
+     */
+    public int render(Skybox[] skyboxes, int start, int end, MatrixStack matrices) {
+        RenderSystem.assertOnRenderThread();
+        if (this.drawn || !FabricSkyBoxesClient.config().generalSettings.compositeLayers || !isCacheable(skyboxes[start])) {
+            return 0;
+        }
+        ClientWorld world = MinecraftClient.getInstance().world;
+        if (world == null) {
+            return 0;
+        }
+        // Layers can only share a composite if they share their rotation
+        Quaternionf rotation = ((TexturedSkybox) skyboxes[start]).getRotation().getQuaternion(world);
+        int count = 1;
+        while (start + count < end && isCacheable(skyboxes[start + count]) && ((TexturedSkybox) skyboxes[start + count]).getRotation().getQuaternion(world).equals(rotation)) {
+            count++;
+        }
+        if (count < 2) {
+            return 0;
+        }
+
+        if (this.matches(skyboxes, start, count)) {
+            this.hits++;
+        } else {
+            this.misses++;
+            if (!this.update(skyboxes, start, count)) {
+                return 0;
+            }
+        }
+        this.drawn = true;
+        matrices.push();
+        matrices.multiply(this.rotation.set(rotation));
+        RenderQueue.getInstance().submit(SkyboxGeometry.getCube(this.cubeSlot, UV_RANGES), TEXTURE_ID, PREMULTIPLIED, 1.0F, matrices);
+        matrices.pop();
+        RenderStats.getInstance().recordSavedDrawCalls(count - 1);
+        return count;
+    }
+
+    private boolean matches(Skybox[] skyboxes, int start, int count) {
+        if (!this.valid || count != this.layerCount) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            if (skyboxes[start + i] != this.layers[i] || this.layers[i].getAlpha() != this.alphas[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Renders the layers into the composite.
+     *
+     * @return Whether the composite could be rendered
+     */
+    private boolean update(Skybox[] skyboxes, int start, int count) {
+        boolean layersChanged = !this.valid || count != this.layerCount;
+        for (int i = 0; i < count && !layersChanged; i++) {
+            layersChanged = skyboxes[start + i] != this.layers[i];
+        }
+        if (this.layers.length < count) {
+            this.layers = Arrays.copyOf(this.layers, count);
+            this.alphas = Arrays.copyOf(this.alphas, count);
+        }
+        for (int i = 0; i < count; i++) {
+            this.layers[i] = (TexturedSkybox) skyboxes[start + i];
+            this.alphas[i] = this.layers[i].getAlpha();
+        }
+        this.layerCount = count;
+        this.valid = false;
+
+        if (layersChanged && !this.resize()) {
+            return false;
+        }
+        SimpleFramebuffer framebuffer = this.framebuffer;
+        assert framebuffer != null;
+
+        int previousFramebuffer = GlStateManager.getBoundFramebuffer();
+        int viewportX = GlStateManager.Viewport.getX();
+        int viewportY = GlStateManager.Viewport.getY();
+        int viewportWidth = GlStateManager.Viewport.getWidth();
+        int viewportHeight = GlStateManager.Viewport.getHeight();
+
+        SkyRenderState state = SkyRenderState.getInstance();
+        state.colorMask(true, true, true, true);
+        framebuffer.clear(MinecraftClient.IS_SYSTEM_MAC);
+        framebuffer.beginWrite(true);
+        state.depthMask(false);
+        state.enableBlend();
+        // Accumulate premultiplied colors, so the composite can be drawn like a single layer
+        state.blendFuncSeparate(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA, GL11.GL_ONE, GL11.GL_ONE_MINUS_SRC_ALPHA);
+        state.blendEquation(Blender.Equation.ADD.value);
+        state.shader(GameRenderer::getPositionTexProgram);
+        if (this.scratchBuffer == null) {
+            this.scratchBuffer = new VertexBuffer(VertexBuffer.Usage.DYNAMIC);
+        }
+        for (int i = 0; i < count; i++) {
+            TexturedSkybox layer = this.layers[i];
+            Vector4f color = layer.getBlend().getShaderColor(this.alphas[i], this.color);
+            state.shaderColor(color.x(), color.y(), color.z(), color.w());
+            this.drawLayer(layer);
+        }
+
+        GlStateManager._glBindFramebuffer(GL30.GL_FRAMEBUFFER, previousFramebuffer);
+        RenderSystem.viewport(viewportX, viewportY, viewportWidth, viewportHeight);
+        this.valid = true;
+        return true;
+    }
+
+    /**
+     * Draws the faces of a layer into their cells, faces sharing a texture in one draw.
+     */
+    private void drawLayer(TexturedSkybox layer) {
+        VertexBuffer buffer = this.scratchBuffer;
+        assert buffer != null;
+        BufferBuilder bufferBuilder = Tessellator.getInstance().getBuffer();
+        Identifier texture = null;
+        for (int face = 0; face <= 6; face++) {
+            Identifier faceTexture = face < 6 ? getTexture(layer, face) : null;
+            if (texture != null && !texture.equals(faceTexture)) {
+                RenderSystem.setShaderTexture(0, texture);
+                buffer.bind();
+                buffer.upload(bufferBuilder.end());
+                buffer.draw(IDENTITY, IDENTITY, RenderSystem.getShader());
+                VertexBuffer.unbind();
+                texture = null;
+            }
+            if (face == 6) {
+                break;
+            }
+            if (texture == null) {
+                texture = faceTexture;
+                bufferBuilder.begin(VertexFormat.DrawMode.QUADS, VertexFormats.POSITION_TEXTURE);
+            }
+            // The cell of the face in normalized device coordinates, matching its UVs in the composite
+            UVRange uv = getUV(layer, face);
+            float minX = (face % 3) * 2.0F / 3.0F - 1.0F;
+            float maxX = (face % 3 + 1) * 2.0F / 3.0F - 1.0F;
+            float minY = face / 3 - 1.0F;
+            float maxY = face / 3;
+            bufferBuilder.vertex(minX, minY, 0.0F).texture(uv.getMinU(), uv.getMinV()).next();
+            bufferBuilder.vertex(maxX, minY, 0.0F).texture(uv.getMaxU(), uv.getMinV()).next();
+            bufferBuilder.vertex(maxX, maxY, 0.0F).texture(uv.getMaxU(), uv.getMaxV()).next();
+            bufferBuilder.vertex(minX, maxY, 0.0F).texture(uv.getMinU(), uv.getMaxV()).next();
+        }
+    }
+
+    /**
+     * Sizes the composite so that a cell holds the largest face of the layers.
+     *
+     * @return Whether the composite has a usable size
+     */
+    private boolean resize() {
+        int faceWidth = 1;
+        int faceHeight = 1;
+        for (int i = 0; i < this.layerCount; i++) {
+            TexturedSkybox layer = this.layers[i];
+            for (int face = 0; face < 6; face++) {
+                AbstractTexture texture = MinecraftClient.getInstance().getTextureManager().getTexture(getTexture(layer, face));
+                RenderSystem.bindTexture(texture.getGlId());
+                UVRange uv = getUV(layer, face);
+                faceWidth = Math.max(faceWidth, Math.round(GlStateManager._getTexLevelParameter(GL11.GL_TEXTURE_2D, 0, GL11.GL_TEXTURE_WIDTH) * Math.abs(uv.getMaxU() - uv.getMinU())));
+                faceHeight = Math.max(faceHeight, Math.round(GlStateManager._getTexLevelParameter(GL11.GL_TEXTURE_2D, 0, GL11.GL_TEXTURE_HEIGHT) * Math.abs(uv.getMaxV() - uv.getMinV())));
+            }
+        }
+        int maxSize = RenderSystem.maxSupportedTextureSize();
+        int width = Math.min(faceWidth * 3, maxSize);
+        int height = Math.min(faceHeight * 2, maxSize);
+
+        if (this.framebuffer == null) {
+            this.framebuffer = new SimpleFramebuffer(width, height, false, MinecraftClient.IS_SYSTEM_MAC);
+            this.framebuffer.setClearColor(0.0F, 0.0F, 0.0F, 0.0F);
+            MinecraftClient.getInstance().getTextureManager().registerTexture(TEXTURE_ID, new CompositeTexture(this.framebuffer));
+        } else if (this.framebuffer.textureWidth != width || this.framebuffer.textureHeight != height) {
+            this.framebuffer.resize(width, height, MinecraftClient.IS_SYSTEM_MAC);
+        }
+        return this.framebuffer.getColorAttachment() > 0;
+    }
+
+    private static Identifier getTexture(TexturedSkybox layer, int face) {
+        if (layer instanceof SquareTexturedSkybox square) {
+            return square.textures.byId(face).getTextureId();
+        }
+        return ((SingleSpriteSquareTexturedSkybox) layer).getTexture().getTextureId();
+    }
+
+    private static UVRange getUV(TexturedSkybox layer, int face) {
+        if (layer instanceof SquareTexturedSkybox square) {
+            return square.textures.byId(face);
+        }
+        return ((SingleSpriteSquareTexturedSkybox) layer).getUvRanges().byId(face);
+    }
+
+    /**
+     * Frees the composite, it is rendered again when it is next needed.
+     */
+    public void clear() {
+        RenderSystem.assertOnRenderThread();
+        if (this.framebuffer != null) {
+            MinecraftClient.getInstance().getTextureManager().destroyTexture(TEXTURE_ID);
+            this.framebuffer.delete();
+            this.framebuffer = null;
+        }
+        if (this.scratchBuffer != null) {
+            this.scratchBuffer.close();
+            this.scratchBuffer = null;
+        }
+        Arrays.fill(this.layers, null);
+        this.layerCount = 0;
+        this.valid = false;
+        this.hits = 0;
+        this.misses = 0;
+    }
+
+    public boolean isEmpty() {
+        return this.framebuffer == null && this.scratchBuffer == null;
+    }
+
+    /**
+     * @return The amount of frames that drew the cached composite
+     */
+    public long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * @return The amount of frames that had to render the composite again
+     */
+    public long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * The color attachment of the composite framebuffer, so the queue can bind it by its id.
+     */
+    private static final class CompositeTexture extends AbstractTexture {
+        private final SimpleFramebuffer framebuffer;
+
+        private CompositeTexture(SimpleFramebuffer framebuffer) {
+            this.framebuffer = framebuffer;
+        }
+
+        @Override
+        public int getGlId() {
+            return this.framebuffer.getColorAttachment();
+        }
+
+        @Override
+        public void load(ResourceManager manager) {
+        }
+    }
+}
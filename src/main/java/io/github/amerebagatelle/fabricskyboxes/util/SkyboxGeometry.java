@@ -0,0 +1,443 @@
+package io.github.amerebagatelle.fabricskyboxes.util;
+
+import com.mojang.blaze3d.systems.RenderSystem;
+import io.github.amerebagatelle.fabricskyboxes.util.object.UVRange;
+import io.github.amerebagatelle.fabricskyboxes.util.object.UVRanges;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import net.minecraft.client.gl.VertexBuffer;
+import net.minecraft.client.render.BufferBuilder;
+import net.minecraft.client.render.Tessellator;
+import net.minecraft.client.render.VertexConsumer;
+import net.minecraft.client.render.VertexFormat;
+import net.minecraft.client.render.VertexFormats;
+import net.minecraft.util.math.RotationAxis;
+import org.joml.Matrix4f;
+import org.joml.Matrix4fc;
+import org.joml.Vector3f;
+import org.joml.Vector4f;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Static vertex buffers for the cube shaped skyboxes.
+ * <p>
+ * The faces are baked in skybox space, so drawing them only needs the model-view matrix of the
+ * skybox. Buffers are shared by their UVs: skyboxes with the same UVs draw the same buffer, and
+ * a buffer is only uploaded the first time its UVs are requested.
+ */
+public final class SkyboxGeometry {
+    /**
+     * Half the edge length of the cube.
+     */
+    public static final float SIZE = 100.0F;
+    public static final int FLOATS_PER_VERTEX = 5;
+    /**
+     * Transforms of the faces of the textured and mono color skyboxes.
+     * 0 = bottom, 1 = north, 2 = south, 3 = top, 4 = east, 5 = west
+     */
+    private static final Matrix4f[] FACES = {
+            new Matrix4f(),
+            new Matrix4f().rotate(RotationAxis.POSITIVE_X.rotationDegrees(90.0F)),
+            new Matrix4f().rotate(RotationAxis.POSITIVE_X.rotationDegrees(-90.0F)).rotate(RotationAxis.POSITIVE_Y.rotationDegrees(180.0F)),
+            new Matrix4f().rotate(RotationAxis.POSITIVE_X.rotationDegrees(180.0F)),
+            new Matrix4f().rotate(RotationAxis.POSITIVE_Z.rotationDegrees(90.0F)).rotate(RotationAxis.POSITIVE_Y.rotationDegrees(-90.0F)),
+            new Matrix4f().rotate(RotationAxis.POSITIVE_Z.rotationDegrees(-90.0F)).rotate(RotationAxis.POSITIVE_Y.rotationDegrees(90.0F))
+    };
+    /**
+     * Transforms of the faces of the vanilla end sky, which are not turned to line up their textures.
+     */
+    private static final Matrix4f[] END_FACES = {
+            new Matrix4f(),
+            new Matrix4f().rotate(RotationAxis.POSITIVE_X.rotationDegrees(90.0F)),
+            new Matrix4f().rotate(RotationAxis.POSITIVE_X.rotationDegrees(-90.0F)),
+            new Matrix4f().rotate(RotationAxis.POSITIVE_X.rotationDegrees(180.0F)),
+            new Matrix4f().rotate(RotationAxis.POSITIVE_Z.rotationDegrees(90.0F)),
+            new Matrix4f().rotate(RotationAxis.POSITIVE_Z.rotationDegrees(-90.0F))
+    };
+    /**
+     * The end sky texture repeats 16 times along each edge of a face.
+     */
+    private static final UVRange END_UV = new UVRange(0.0F, 0.0F, 16.0F, 16.0F);
+    /**
+     * The corners of the faces of {@link #FACES}, three floats each.
+     */
+    private static final float[][] FACE_CORNERS = new float[6][];
+    private static final Vector4f CORNER = new Vector4f();
+    /**
+     * The face of the key of quads which are already baked.
+     */
+    private static final int BAKED = -1;
+    /**
+     * The sun quad of the decorations, above the sky.
+     */
+    private static final float[] SUN = {
+            -30.0F, SIZE, -30.0F, 0.0F, 0.0F,
+            30.0F, SIZE, -30.0F, 1.0F, 0.0F,
+            30.0F, SIZE, 30.0F, 1.0F, 1.0F,
+            -30.0F, SIZE, 30.0F, 0.0F, 1.0F
+    };
+    /**
+     * The moon quad of the decorations below the sky, for each of the 8 phases of the 4x2 moon texture.
+     */
+    private static final float[][] MOON = new float[8][];
+    private static final Slot SUN_SLOT = new Slot();
+    private static final Slot[] MOON_SLOTS = new Slot[8];
+    private static final Map<Key, Mesh> MESHES = new Object2ObjectOpenHashMap<>();
+    private static int generation = 0;
+
+    static {
+        for (int face = 0; face < 6; face++) {
+            float[] vertices = bake(FACES, face, 1, new float[4]);
+            float[] corners = new float[12];
+            for (int i = 0; i < 4; i++) {
+                System.arraycopy(vertices, i * FLOATS_PER_VERTEX, corners, i * 3, 3);
+            }
+            FACE_CORNERS[face] = corners;
+        }
+        for (int phase = 0; phase < 8; phase++) {
+            float startX = (phase % 4) / 4.0F;
+            float startY = (phase / 4) / 2.0F;
+            float endX = (phase % 4 + 1) / 4.0F;
+            float endY = (phase / 4 + 1) / 2.0F;
+            MOON[phase] = new float[]{
+                    -20.0F, -SIZE, 20.0F, endX, endY,
+                    20.0F, -SIZE, 20.0F, startX, endY,
+                    20.0F, -SIZE, -20.0F, startX, startY,
+                    -20.0F, -SIZE, -20.0F, endX, startY
+            };
+            MOON_SLOTS[phase] = new Slot();
+        }
+    }
+
+    private SkyboxGeometry() {
+    }
+
+    /**
+     * Tests a face of the textured and mono color skyboxes against the view frustum.
+     * <p>
+     * A face is culled if all its corners lie outside the same side plane or behind the near
+     * plane. The far plane is not tested, the cube may reach beyond it while its faces are
+     * still visible in front of it.
+     *
+     * @param face                The face, 0 = bottom, 1 = north, 2 = south, 3 = top, 4 = east, 5 = west
+     * @param modelViewProjection The projection matrix multiplied by the model-view matrix of the skybox
+     * @return Whether the face may be visible
+     */
+    public static boolean isFaceVisible(int face, Matrix4fc modelViewProjection) {
+        float[] corners = FACE_CORNERS[face];
+        int outside = 0b11111;
+        for (int i = 0; i < corners.length; i += 3) {
+            Vector4f corner = modelViewProjection.transform(corners[i], corners[i + 1], corners[i + 2], 1.0F, CORNER);
+            int planes = 0;
+            if (corner.x() < -corner.w()) planes |= 1;
+            if (corner.x() > corner.w()) planes |= 2;
+            if (corner.y() < -corner.w()) planes |= 4;
+            if (corner.y() > corner.w()) planes |= 8;
+            if (corner.z() < -corner.w()) planes |= 16;
+            outside &= planes;
+        }
+        return outside == 0;
+    }
+
+    /**
+     * The orientation of a face of the textured and mono color skyboxes. Faces are built on the
+     * plane y = -{@value #SIZE} and turned into place by this transform.
+     *
+     * @param face The face, 0 = bottom, 1 = north, 2 = south, 3 = top, 4 = east, 5 = west
+     * @return The transform of the face, do not modify
+     */
+    public static Matrix4fc getFaceTransform(int face) {
+        return FACES[face];
+    }
+
+    /**
+     * Bakes a single face of a cube.
+     *
+     * @param face The face, 0 = bottom, 1 = north, 2 = south, 3 = top, 4 = east, 5 = west
+     * @param uv   The UVs of the face
+     * @return The position and UV of the four vertices, {@value #FLOATS_PER_VERTEX} floats each
+     */
+    public static float[] bakeFace(int face, UVRange uv) {
+        return bake(FACES, face, 1, toArray(uv));
+    }
+
+    /**
+     * Bakes all six faces of a cube.
+     *
+     * @param uvRanges The UVs of the faces
+     * @return The position and UV of the 24 vertices, {@value #FLOATS_PER_VERTEX} floats each
+     */
+    public static float[] bakeCube(UVRanges uvRanges) {
+        return bake(FACES, 0, 6, toArray(uvRanges));
+    }
+
+    private static float[] bake(Matrix4f[] transforms, int firstFace, int faceCount, float[] uvs) {
+        float[] vertices = new float[faceCount * 4 * FLOATS_PER_VERTEX];
+        Vector3f position = new Vector3f();
+        int offset = 0;
+        for (int i = 0; i < faceCount; i++) {
+            Matrix4f transform = transforms[firstFace + i];
+            float minU = uvs[i * 4];
+            float minV = uvs[i * 4 + 1];
+            float maxU = uvs[i * 4 + 2];
+            float maxV = uvs[i * 4 + 3];
+            offset = putVertex(vertices, offset, transform.transformPosition(-SIZE, -SIZE, -SIZE, position), minU, minV);
+            offset = putVertex(vertices, offset, transform.transformPosition(-SIZE, -SIZE, SIZE, position), minU, maxV);
+            offset = putVertex(vertices, offset, transform.transformPosition(SIZE, -SIZE, SIZE, position), maxU, maxV);
+            offset = putVertex(vertices, offset, transform.transformPosition(SIZE, -SIZE, -SIZE, position), maxU, minV);
+        }
+        return vertices;
+    }
+
+    private static int putVertex(float[] vertices, int offset, Vector3f position, float u, float v) {
+        vertices[offset] = position.x();
+        vertices[offset + 1] = position.y();
+        vertices[offset + 2] = position.z();
+        vertices[offset + 3] = u;
+        vertices[offset + 4] = v;
+        return offset + FLOATS_PER_VERTEX;
+    }
+
+    private static float[] toArray(UVRange... uvRanges) {
+        float[] uvs = new float[uvRanges.length * 4];
+        for (int i = 0; i < uvRanges.length; i++) {
+            uvs[i * 4] = uvRanges[i].getMinU();
+            uvs[i * 4 + 1] = uvRanges[i].getMinV();
+            uvs[i * 4 + 2] = uvRanges[i].getMaxU();
+            uvs[i * 4 + 3] = uvRanges[i].getMaxV();
+        }
+        return uvs;
+    }
+
+    private static float[] toArray(UVRanges uvRanges) {
+        UVRange[] faces = new UVRange[6];
+        Arrays.setAll(faces, uvRanges::byId);
+        return toArray(faces);
+    }
+
+    /**
+     * @param slot The slot of the face in the skybox
+     * @param face The face, 0 = bottom, 1 = north, 2 = south, 3 = top, 4 = east, 5 = west
+     * @param uv   The UVs of the face
+     * @return A mesh of the face in {@link VertexFormats#POSITION_TEXTURE}
+     */
+    public static Mesh getFace(Slot slot, int face, UVRange uv) {
+        if (slot.isStale(uv)) {
+            slot.set(uv, get(new Key(Shape.TEXTURED, face, toArray(uv))));
+        }
+        return slot.mesh;
+    }
+
+    /**
+     * @param slot     The slot of the cube in the skybox
+     * @param uvRanges The UVs of the faces
+     * @return A mesh of the six faces in {@link VertexFormats#POSITION_TEXTURE}
+     */
+    public static Mesh getCube(Slot slot, UVRanges uvRanges) {
+        if (slot.isStale(uvRanges)) {
+            slot.set(uvRanges, get(new Key(Shape.TEXTURED, 0, toArray(uvRanges))));
+        }
+        return slot.mesh;
+    }
+
+    /**
+     * @param slot The slot of the cube in the skybox
+     * @return A white cube in {@link VertexFormats#POSITION_COLOR}, to be tinted
+     */
+    public static Mesh getColorCube(Slot slot) {
+        if (slot.isStale(Shape.COLORED)) {
+            slot.set(Shape.COLORED, get(new Key(Shape.COLORED, 0, new float[6 * 4])));
+        }
+        return slot.mesh;
+    }
+
+    /**
+     * @param slot The slot of the cube in the skybox
+     * @return The vanilla end sky cube in {@link VertexFormats#POSITION_TEXTURE_COLOR}, at full alpha
+     */
+    public static Mesh getEndCube(Slot slot) {
+        if (slot.isStale(Shape.END)) {
+            slot.set(Shape.END, get(new Key(Shape.END, 0, toArray(END_UV, END_UV, END_UV, END_UV, END_UV, END_UV))));
+        }
+        return slot.mesh;
+    }
+
+    /**
+     * @param slot     The slot of the quads in the skybox
+     * @param vertices Quads in skybox space, {@value #FLOATS_PER_VERTEX} floats of position and UV per vertex, not modified afterwards
+     * @return A mesh of the quads in {@link VertexFormats#POSITION_TEXTURE}
+     */
+    public static Mesh getQuads(Slot slot, float[] vertices) {
+        if (slot.isStale(vertices)) {
+            slot.set(vertices, get(new Key(Shape.TEXTURED, BAKED, vertices)));
+        }
+        return slot.mesh;
+    }
+
+    /**
+     * @return The sun of the decorations in {@link VertexFormats#POSITION_TEXTURE}
+     */
+    public static Mesh getSun() {
+        return getQuads(SUN_SLOT, SUN);
+    }
+
+    /**
+     * @param phase The moon phase, 0 to 7
+     * @return The moon of the decorations in {@link VertexFormats#POSITION_TEXTURE}, with the UVs of the phase
+     */
+    public static Mesh getMoon(int phase) {
+        return getQuads(MOON_SLOTS[phase & 7], MOON[phase & 7]);
+    }
+
+    private static Mesh get(Key key) {
+        RenderSystem.assertOnRenderThread();
+        return MESHES.computeIfAbsent(key, SkyboxGeometry::upload);
+    }
+
+    private static Mesh upload(Key key) {
+        float[] vertices;
+        if (key.face() == BAKED) {
+            vertices = key.data();
+        } else {
+            vertices = bake(key.shape() == Shape.END ? END_FACES : FACES, key.face(), key.data().length / 4, key.data());
+        }
+
+        BufferBuilder bufferBuilder = Tessellator.getInstance().getBuffer();
+        bufferBuilder.begin(VertexFormat.DrawMode.QUADS, key.shape().format);
+        for (int i = 0; i < vertices.length; i += FLOATS_PER_VERTEX) {
+            VertexConsumer vertex = bufferBuilder.vertex(vertices[i], vertices[i + 1], vertices[i + 2]);
+            switch (key.shape()) {
+                case TEXTURED -> vertex.texture(vertices[i + 3], vertices[i + 4]);
+                case COLORED -> vertex.color(255, 255, 255, 255);
+                case END -> vertex.texture(vertices[i + 3], vertices[i + 4]).color(key.shape().color >> 16 & 255, key.shape().color >> 8 & 255, key.shape().color & 255, 255);
+            }
+            vertex.next();
+        }
+
+        VertexBuffer buffer = new VertexBuffer(VertexBuffer.Usage.STATIC);
+        buffer.bind();
+        buffer.upload(bufferBuilder.end());
+        VertexBuffer.unbind();
+        return new Mesh(key.shape(), buffer, vertices);
+    }
+
+    /**
+     * Frees every mesh, the slots of the skyboxes look theirs up again when they are next drawn.
+     */
+    public static void clear() {
+        RenderSystem.assertOnRenderThread();
+        MESHES.values().forEach(mesh -> mesh.buffer.close());
+        MESHES.clear();
+        generation++;
+    }
+
+    public static boolean isEmpty() {
+        return MESHES.isEmpty();
+    }
+
+    public enum Shape {
+        /**
+         * Textured faces in {@link VertexFormats#POSITION_TEXTURE}.
+         */
+        TEXTURED(VertexFormats.POSITION_TEXTURE, 0xFFFFFF),
+        /**
+         * White faces in {@link VertexFormats#POSITION_COLOR}.
+         */
+        COLORED(VertexFormats.POSITION_COLOR, 0xFFFFFF),
+        /**
+         * Dark gray faces with the end sky tiling in {@link VertexFormats#POSITION_TEXTURE_COLOR}.
+         */
+        END(VertexFormats.POSITION_TEXTURE_COLOR, 0x282828);
+
+        private final VertexFormat format;
+        private final int color;
+
+        Shape(VertexFormat format, int color) {
+            this.format = format;
+            this.color = color;
+        }
+
+        public VertexFormat getFormat() {
+            return this.format;
+        }
+
+        /**
+         * @return The RGB color baked into the vertices
+         */
+        public int getColor() {
+            return this.color;
+        }
+
+        public boolean hasTexture() {
+            return this != COLORED;
+        }
+    }
+
+    /**
+     * Shared geometry, uploaded once. The baked vertices stay on the CPU so the mesh can also be
+     * written into a combined buffer together with other meshes.
+     */
+    public static final class Mesh {
+        private final Shape shape;
+        private final VertexBuffer buffer;
+        private final float[] vertices;
+
+        private Mesh(Shape shape, VertexBuffer buffer, float[] vertices) {
+            this.shape = shape;
+            this.buffer = buffer;
+            this.vertices = vertices;
+        }
+
+        public Shape getShape() {
+            return this.shape;
+        }
+
+        public VertexBuffer getBuffer() {
+            return this.buffer;
+        }
+
+        /**
+         * @return The position and UV of each vertex in skybox space, {@value SkyboxGeometry#FLOATS_PER_VERTEX} floats each, do not modify
+         */
+        public float[] getVertices() {
+            return this.vertices;
+        }
+    }
+
+    /**
+     * @param face The first face, or {@link #BAKED}
+     * @param data The UVs of the faces, or the vertices of baked quads
+     */
+    private record Key(Shape shape, int face, float[] data) {
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key key && this.shape == key.shape && this.face == key.face && Arrays.equals(this.data, key.data);
+        }
+
+        @Override
+        public int hashCode() {
+            return (this.shape.hashCode() * 31 + this.face) * 31 + Arrays.hashCode(this.data);
+        }
+    }
+
+    /**
+     * A reference of a skybox to a shared mesh. The mesh is only looked up again when the
+     * object its UVs come from changes, so skyboxes with fixed UVs never hash them while drawing.
+     */
+    public static final class Slot {
+        private Object source;
+        private int generation = -1;
+        private Mesh mesh;
+
+        private boolean isStale(Object source) {
+            return this.source != source || this.generation != SkyboxGeometry.generation;
+        }
+
+        private void set(Object source, Mesh mesh) {
+            this.source = source;
+            this.generation = SkyboxGeometry.generation;
+            this.mesh = mesh;
+        }
+    }
+}
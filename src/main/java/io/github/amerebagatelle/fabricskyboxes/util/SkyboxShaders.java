@@ -0,0 +1,36 @@
+package io.github.amerebagatelle.fabricskyboxes.util;
+
+import io.github.amerebagatelle.fabricskyboxes.FabricSkyBoxesClient;
+import net.fabricmc.fabric.api.client.rendering.v1.CoreShaderRegistrationCallback;
+import net.minecraft.client.gl.ShaderProgram;
+import net.minecraft.client.render.VertexFormats;
+import net.minecraft.util.Identifier;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The shader programs of the mod, loaded together with the vanilla core shaders.
+ */
+public final class SkyboxShaders {
+    @Nullable
+    private static ShaderProgram animatedLayer;
+
+    private SkyboxShaders() {
+    }
+
+    public static void register() {
+        CoreShaderRegistrationCallback.EVENT.register(context -> context.register(new Identifier(FabricSkyBoxesClient.MODID, "animated_layer"), VertexFormats.POSITION_TEXTURE, program -> animatedLayer = program));
+    }
+
+    /**
+     * Draws the layers of animated skyboxes from a sprite sheet. The UVs of the vertices are the
+     * position within a frame, the frames are picked by the uniforms {@code GridSize} (columns,
+     * rows), {@code FrameIndex} and {@code NextFrameIndex}, and {@code FrameBlend} crossfades
+     * from the frame to the next.
+     *
+     * @return The program, null if it is not loaded
+     */
+    @Nullable
+    public static ShaderProgram getAnimatedLayer() {
+        return animatedLayer;
+    }
+}
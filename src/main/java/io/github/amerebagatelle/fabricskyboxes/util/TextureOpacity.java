@@ -0,0 +1,86 @@
+package io.github.amerebagatelle.fabricskyboxes.util;
+
+import com.mojang.blaze3d.systems.RenderSystem;
+import io.github.amerebagatelle.fabricskyboxes.FabricSkyBoxesClient;
+import io.github.amerebagatelle.fabricskyboxes.util.object.Textures;
+import it.unimi.dsi.fastutil.objects.Object2BooleanMap;
+import it.unimi.dsi.fastutil.objects.Object2BooleanOpenHashMap;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.texture.NativeImage;
+import net.minecraft.resource.Resource;
+import net.minecraft.util.Identifier;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+/**
+ * Whether skybox textures are fully opaque, read from their images the first time they are
+ * requested. A skybox drawn with opaque textures at full alpha hides the skyboxes below it.
+ * <p>
+ * A texture that cannot be read counts as translucent, so it never hides anything.
+ */
+public final class TextureOpacity {
+    private static final Object2BooleanMap<Identifier> OPAQUE = new Object2BooleanOpenHashMap<>();
+
+    private TextureOpacity() {
+    }
+
+    /**
+     * @param texture The id of the texture
+     * @return Whether every pixel of the texture is opaque
+     */
+    public static boolean isOpaque(Identifier texture) {
+        RenderSystem.assertOnRenderThread();
+        if (!OPAQUE.containsKey(texture)) {
+            OPAQUE.put(texture, read(texture));
+        }
+        return OPAQUE.getBoolean(texture);
+    }
+
+    /**
+     * @param textures The textures of a skybox
+     * @return Whether the textures of all faces are opaque
+     */
+    public static boolean isOpaque(Textures textures) {
+        for (int i = 0; i < 6; i++) {
+            if (!isOpaque(textures.byId(i).getTextureId())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean read(Identifier texture) {
+        Optional<Resource> resource = MinecraftClient.getInstance().getResourceManager().getResource(texture);
+        if (resource.isEmpty()) {
+            return false;
+        }
+        try (InputStream stream = resource.get().getInputStream(); NativeImage image = NativeImage.read(NativeImage.Format.RGBA, stream)) {
+            for (int y = 0; y < image.getHeight(); y++) {
+                for (int x = 0; x < image.getWidth(); x++) {
+                    // ABGR, alpha in the highest byte
+                    if (image.getColor(x, y) >>> 24 != 255) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            FabricSkyBoxesClient.getLogger().error("Failed to read skybox texture " + texture, e);
+            return false;
+        }
+    }
+
+    /**
+     * Forgets every texture, they are read again when they are next requested.
+     */
+    public static void clear() {
+        RenderSystem.assertOnRenderThread();
+        OPAQUE.clear();
+    }
+
+    public static boolean isEmpty() {
+        return OPAQUE.isEmpty();
+    }
+}
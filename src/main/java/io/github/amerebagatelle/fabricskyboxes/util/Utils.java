@@ -1,6 +1,5 @@
 package io.github.amerebagatelle.fabricskyboxes.util;
 
-import com.google.common.collect.Range;
 import com.mojang.serialization.Codec;
 import io.github.amerebagatelle.fabricskyboxes.FabricSkyBoxesClient;
 import io.github.amerebagatelle.fabricskyboxes.api.skyboxes.FSBSkybox;
@@ -60,9 +59,17 @@ public class Utils {
      * @return Whether the value is within any of the minMaxEntries.
      */
     public static boolean checkRanges(double value, List<MinMaxEntry> minMaxEntries) {
-        return minMaxEntries.isEmpty() || minMaxEntries.stream()
-                .anyMatch(minMaxEntry -> Range.closed(minMaxEntry.getMin(), minMaxEntry.getMax())
-                        .contains((float) value));
+        if (minMaxEntries.isEmpty()) {
+            return true;
+        }
+        float floatValue = (float) value;
+        for (int i = 0, size = minMaxEntries.size(); i < size; i++) {
+            MinMaxEntry minMaxEntry = minMaxEntries.get(i);
+            if (Float.compare(minMaxEntry.getMin(), floatValue) <= 0 && Float.compare(floatValue, minMaxEntry.getMax()) <= 0) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -3,10 +3,11 @@ package io.github.amerebagatelle.fabricskyboxes.util.object;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import io.github.amerebagatelle.fabricskyboxes.util.Utils;
-import net.minecraft.util.Util;
+import net.minecraft.util.math.MathHelper;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 public class Animation {
     public static final Codec<Animation> CODEC = RecordCodecBuilder.create(instance -> instance.group(
@@ -15,23 +16,37 @@ public class Animation {
             Utils.getClampedInteger(1, Integer.MAX_VALUE).fieldOf("gridColumns").forGetter(Animation::getGridColumns),
             Utils.getClampedInteger(1, Integer.MAX_VALUE).fieldOf("gridRows").forGetter(Animation::getGridRows),
             Utils.getClampedInteger(1, Integer.MAX_VALUE).fieldOf("duration").forGetter(Animation::getDuration),
-            Codec.BOOL.optionalFieldOf("interpolate", true).forGetter(Animation::isInterpolate),
+            Codec.BOOL.optionalFieldOf("interpolate").forGetter(Animation::getInterpolate),
             Codec.unboundedMap(Codec.STRING, Codec.INT).optionalFieldOf("frameDuration", new HashMap<>()).forGetter(Animation::getFrameDuration)
-    ).apply(instance, Animation::new));
+    ).apply(instance, (texture, uvRange, gridColumns, gridRows, duration, interpolate, frameDuration) -> new Animation(texture, uvRange, gridColumns, gridRows, duration, interpolate, frameDuration)));
 
     private final Texture texture;
     private final UVRange uvRange;
     private final int gridRows;
     private final int gridColumns;
     private final int duration;
-    private final boolean interpolate;
+    /**
+     * Empty if the pack does not set it, frames then cut like they always did.
+     */
+    private final Optional<Boolean> interpolate;
     private final Map<String, Integer> frameDuration;
 
+    /**
+     * The UVs and durations of the frames, in playing order.
+     */
+    private final UVRange[] frames;
+    private final int[] frameDurations;
+
     private UVRange currentFrame;
     private int index;
+    private long time;
     private long nextTime;
 
     public Animation(Texture texture, UVRange uvRange, int gridColumns, int gridRows, int duration, boolean interpolate, Map<String, Integer> frameDuration) {
+        this(texture, uvRange, gridColumns, gridRows, duration, Optional.of(interpolate), frameDuration);
+    }
+
+    public Animation(Texture texture, UVRange uvRange, int gridColumns, int gridRows, int duration, Optional<Boolean> interpolate, Map<String, Integer> frameDuration) {
         this.texture = texture;
         this.uvRange = uvRange;
         this.gridColumns = gridColumns;
@@ -39,6 +54,13 @@ public class Animation {
         this.duration = duration;
         this.interpolate = interpolate;
         this.frameDuration = frameDuration;
+        this.frames = new UVRange[gridRows * gridColumns];
+        this.frameDurations = new int[this.frames.length];
+        for (int i = 0; i < this.frames.length; i++) {
+            this.frames[i] = this.calculateNextFrameUVRange(i);
+            // Frame durations are keyed by the frame number, starting at 1
+            this.frameDurations[i] = frameDuration.getOrDefault(String.valueOf(i + 1), duration);
+        }
     }
 
     public Texture getTexture() {
@@ -61,20 +83,34 @@ public class Animation {
         return duration;
     }
 
+    /**
+     * @return Whether frames fade into the next frame, only if the pack enables it explicitly
+     */
     public boolean isInterpolate() {
-        return interpolate;
+        return this.interpolate.orElse(false);
+    }
+
+    public Optional<Boolean> getInterpolate() {
+        return this.interpolate;
     }
 
     public Map<String, Integer> getFrameDuration() {
         return frameDuration;
     }
 
-    public void tick() {
-        if (this.nextTime <= Util.getEpochTimeMs()) {
+    /**
+     * Advances the animation, at most by one frame.
+     *
+     * @param delta The milliseconds passed since the last tick
+     * @see io.github.amerebagatelle.fabricskyboxes.util.AnimationClock
+     */
+    public void tick(long delta) {
+        this.time += delta;
+        if (this.nextTime <= this.time) {
             // Current Frame
-            this.index = (this.index + 1) % (this.gridRows * this.gridColumns);
-            this.currentFrame = this.calculateNextFrameUVRange(this.index);
-            this.nextTime = Util.getEpochTimeMs() + this.frameDuration.getOrDefault(String.valueOf(this.index + 1), this.duration);
+            this.index = (this.index + 1) % this.frames.length;
+            this.currentFrame = this.frames[this.index];
+            this.nextTime = this.time + this.frameDurations[this.index];
         }
     }
 
@@ -82,6 +118,35 @@ public class Animation {
         return currentFrame;
     }
 
+    /**
+     * @return The UVs of the frame after the current one
+     */
+    public UVRange getNextFrame() {
+        return this.frames[this.getNextFrameIndex()];
+    }
+
+    /**
+     * @return The index of the current frame, frames are numbered column by column
+     */
+    public int getFrameIndex() {
+        return this.index;
+    }
+
+    public int getNextFrameIndex() {
+        return (this.index + 1) % this.frames.length;
+    }
+
+    /**
+     * @return How far the current frame has played from 0 to 1, always 0 if the animation does not interpolate
+     */
+    public float getFrameProgress() {
+        int frameDuration = this.frameDurations[this.index];
+        if (!this.isInterpolate() || this.currentFrame == null || frameDuration <= 0) {
+            return 0.0F;
+        }
+        return MathHelper.clamp(1.0F - (float) (this.nextTime - this.time) / frameDuration, 0.0F, 1.0F);
+    }
+
     private UVRange calculateNextFrameUVRange(int nextFrameIndex) {
         float frameWidth = 1.0F / this.gridColumns;
         float frameHeight = 1.0F / this.gridRows;
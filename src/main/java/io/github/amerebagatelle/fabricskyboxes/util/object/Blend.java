@@ -1,12 +1,13 @@
 package io.github.amerebagatelle.fabricskyboxes.util.object;
 
 import com.mojang.blaze3d.platform.GlStateManager;
-import com.mojang.blaze3d.systems.RenderSystem;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import io.github.amerebagatelle.fabricskyboxes.FabricSkyBoxesClient;
+import io.github.amerebagatelle.fabricskyboxes.util.SkyRenderState;
+import org.joml.Vector4f;
 
-import java.util.function.Consumer;
+import java.util.Objects;
 
 public class Blend {
     public static final Blend DEFAULT = new Blend("", Blender.DEFAULT);
@@ -18,80 +19,135 @@ public class Blend {
     private final String type;
     private final Blender blender;
 
-    private final Consumer<Float> blendFunc;
+    /**
+     * Sets the blend function and equation of this blend.
+     */
+    private final Runnable blendState;
+    /**
+     * The blender whose shader color is used, if the blend delegates to one.
+     */
+    private final Blender colorBlender;
+    /**
+     * Whether the alpha of the skybox scales the red, green and blue of the shader color rather than its alpha.
+     */
+    private final boolean alphaOnColor;
+    /**
+     * Whether the alpha of the skybox scales the alpha of the shader color.
+     */
+    private final boolean alphaOnAlpha;
+    /**
+     * Scratch vector of {@link #applyBlendFunc(float)}, only used on the render thread.
+     */
+    private final Vector4f color = new Vector4f();
 
     public Blend(String type, Blender blender) {
         this.type = type;
         this.blender = blender;
 
-        if (!type.isEmpty()) {
-            switch (type) {
-                case "add" -> blendFunc = (alpha) -> {
-                    RenderSystem.blendFunc(GlStateManager.SrcFactor.SRC_ALPHA, GlStateManager.DstFactor.ONE);
-                    RenderSystem.blendEquation(Blender.Equation.ADD.value);
-                    RenderSystem.setShaderColor(1.0F, 1.0F, 1.0F, alpha);
-                };
-                case "subtract" -> blendFunc = (alpha) -> {
-                    RenderSystem.blendFunc(GlStateManager.SrcFactor.ONE_MINUS_DST_COLOR, GlStateManager.DstFactor.ZERO);
-                    RenderSystem.blendEquation(Blender.Equation.ADD.value);
-                    RenderSystem.setShaderColor(alpha, alpha, alpha, 1.0F);
-                };
-                case "multiply" -> blendFunc = (alpha) -> {
-                    RenderSystem.blendFunc(GlStateManager.SrcFactor.DST_COLOR, GlStateManager.DstFactor.ONE_MINUS_SRC_ALPHA);
-                    RenderSystem.blendEquation(Blender.Equation.ADD.value);
-                    RenderSystem.setShaderColor(alpha, alpha, alpha, alpha);
-                };
-                case "screen" -> blendFunc = (alpha) -> {
-                    RenderSystem.blendFunc(GlStateManager.SrcFactor.ONE, GlStateManager.DstFactor.ONE_MINUS_SRC_COLOR);
-                    RenderSystem.blendEquation(Blender.Equation.ADD.value);
-                    RenderSystem.setShaderColor(alpha, alpha, alpha, 1.0F);
-                };
-                case "replace" -> blendFunc = (alpha) -> {
-                    RenderSystem.blendFunc(GlStateManager.SrcFactor.ZERO, GlStateManager.DstFactor.ONE);
-                    RenderSystem.blendEquation(Blender.Equation.ADD.value);
-                    RenderSystem.setShaderColor(1.0F, 1.0F, 1.0F, alpha);
-                };
-                case "alpha" -> blendFunc = (alpha) -> {
-                    RenderSystem.blendFunc(GlStateManager.SrcFactor.SRC_ALPHA, GlStateManager.DstFactor.ONE_MINUS_SRC_ALPHA);
-                    RenderSystem.blendEquation(Blender.Equation.ADD.value);
-                    RenderSystem.setShaderColor(1.0F, 1.0F, 1.0F, alpha);
-                };
-                case "burn" -> blendFunc = (alpha) -> {
-                    RenderSystem.blendFunc(GlStateManager.SrcFactor.ZERO, GlStateManager.DstFactor.ONE_MINUS_SRC_COLOR);
-                    RenderSystem.blendEquation(Blender.Equation.ADD.value);
-                    RenderSystem.setShaderColor(alpha, alpha, alpha, 1.0F);
-                };
-                case "dodge" -> blendFunc = (alpha) -> {
-                    RenderSystem.blendFunc(GlStateManager.SrcFactor.DST_COLOR, GlStateManager.DstFactor.ONE);
-                    RenderSystem.blendEquation(Blender.Equation.ADD.value);
-                    RenderSystem.setShaderColor(alpha, alpha, alpha, 1.0F);
-                };
-                case "disable" -> blendFunc = (alpha) -> {
-                    RenderSystem.disableBlend();
-                    RenderSystem.setShaderColor(1.0F, 1.0F, 1.0F, alpha);
-                };
-                case "decorations" -> blendFunc = Blender.DECORATIONS::applyBlendFunc;
-                case "custom" -> blendFunc = this.blender::applyBlendFunc;
-                default -> {
-                    if (FabricSkyBoxesClient.config().generalSettings.debugMode) {
-                        FabricSkyBoxesClient.getLogger().error("Blend mode is set to an invalid or unsupported value.");
-                    }
-                    blendFunc = (alpha) -> {
-                        RenderSystem.defaultBlendFunc();
-                        RenderSystem.setShaderColor(1.0F, 1.0F, 1.0F, alpha);
-                    };
+        Runnable blendState;
+        Blender colorBlender = null;
+        boolean alphaOnColor = false;
+        boolean alphaOnAlpha = true;
+        switch (type) {
+            case "add" -> blendState = () -> blend(GlStateManager.SrcFactor.SRC_ALPHA, GlStateManager.DstFactor.ONE);
+            case "subtract" -> {
+                blendState = () -> blend(GlStateManager.SrcFactor.ONE_MINUS_DST_COLOR, GlStateManager.DstFactor.ZERO);
+                alphaOnColor = true;
+                alphaOnAlpha = false;
+            }
+            case "multiply" -> {
+                blendState = () -> blend(GlStateManager.SrcFactor.DST_COLOR, GlStateManager.DstFactor.ONE_MINUS_SRC_ALPHA);
+                alphaOnColor = true;
+            }
+            case "screen" -> {
+                blendState = () -> blend(GlStateManager.SrcFactor.ONE, GlStateManager.DstFactor.ONE_MINUS_SRC_COLOR);
+                alphaOnColor = true;
+                alphaOnAlpha = false;
+            }
+            case "replace" -> blendState = () -> blend(GlStateManager.SrcFactor.ZERO, GlStateManager.DstFactor.ONE);
+            case "alpha" -> blendState = () -> blend(GlStateManager.SrcFactor.SRC_ALPHA, GlStateManager.DstFactor.ONE_MINUS_SRC_ALPHA);
+            case "burn" -> {
+                blendState = () -> blend(GlStateManager.SrcFactor.ZERO, GlStateManager.DstFactor.ONE_MINUS_SRC_COLOR);
+                alphaOnColor = true;
+                alphaOnAlpha = false;
+            }
+            case "dodge" -> {
+                blendState = () -> blend(GlStateManager.SrcFactor.DST_COLOR, GlStateManager.DstFactor.ONE);
+                alphaOnColor = true;
+                alphaOnAlpha = false;
+            }
+            case "disable" -> blendState = SkyRenderState.getInstance()::disableBlend;
+            case "decorations" -> {
+                blendState = Blender.DECORATIONS::applyBlendState;
+                colorBlender = Blender.DECORATIONS;
+            }
+            case "custom" -> {
+                blendState = this.blender::applyBlendState;
+                colorBlender = this.blender;
+            }
+            case "" -> blendState = SkyRenderState.getInstance()::defaultBlendFunc;
+            default -> {
+                if (FabricSkyBoxesClient.config().generalSettings.debugMode) {
+                    FabricSkyBoxesClient.getLogger().error("Blend mode is set to an invalid or unsupported value.");
                 }
+                blendState = SkyRenderState.getInstance()::defaultBlendFunc;
             }
-        } else {
-            blendFunc = (alpha) -> {
-                RenderSystem.defaultBlendFunc();
-                RenderSystem.setShaderColor(1.0F, 1.0F, 1.0F, alpha);
-            };
         }
+        this.blendState = blendState;
+        this.colorBlender = colorBlender;
+        this.alphaOnColor = alphaOnColor;
+        this.alphaOnAlpha = alphaOnAlpha;
+    }
+
+    private static void blend(GlStateManager.SrcFactor sourceFactor, GlStateManager.DstFactor destinationFactor) {
+        SkyRenderState.getInstance().blendFunc(sourceFactor, destinationFactor);
+        SkyRenderState.getInstance().blendEquation(Blender.Equation.ADD.value);
     }
 
     public void applyBlendFunc(float alpha) {
-        blendFunc.accept(alpha);
+        this.applyBlendState();
+        Vector4f color = this.getShaderColor(alpha, this.color);
+        SkyRenderState.getInstance().shaderColor(color.x(), color.y(), color.z(), color.w());
+    }
+
+    /**
+     * Applies the blend function and equation, without the alpha dependent shader color.
+     */
+    public void applyBlendState() {
+        this.blendState.run();
+    }
+
+    /**
+     * @param alpha The alpha of the skybox
+     * @param dest  Will hold the shader color that belongs to the alpha
+     * @return dest
+     */
+    public Vector4f getShaderColor(float alpha, Vector4f dest) {
+        if (this.colorBlender != null) {
+            return this.colorBlender.getShaderColor(alpha, dest);
+        }
+        float color = this.alphaOnColor ? alpha : 1.0F;
+        return dest.set(color, color, color, this.alphaOnAlpha ? alpha : 1.0F);
+    }
+
+    /**
+     * Blends are equal if applying them results in the same GL state.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Blend blend && this.type.equals(blend.type) && (!this.type.equals("custom") || this.blender.equals(blend.blender));
+    }
+
+    @Override
+    public int hashCode() {
+        return this.type.equals("custom") ? Objects.hash(this.type, this.blender) : this.type.hashCode();
+    }
+
+    /**
+     * @return Whether an opaque skybox drawn with this blend at full alpha replaces what is below it
+     */
+    public boolean isOpaque() {
+        return this.type.isEmpty() || this.type.equals("alpha") || this.type.equals("disable");
     }
 
     public String getType() {
@@ -1,14 +1,15 @@
 package io.github.amerebagatelle.fabricskyboxes.util.object;
 
 import com.mojang.blaze3d.platform.GlStateManager;
-import com.mojang.blaze3d.systems.RenderSystem;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import io.github.amerebagatelle.fabricskyboxes.FabricSkyBoxesClient;
+import io.github.amerebagatelle.fabricskyboxes.util.SkyRenderState;
+import org.joml.Vector4f;
 import org.lwjgl.opengl.GL14;
 
 import java.util.Arrays;
-import java.util.function.Consumer;
+import java.util.Objects;
 
 public class Blender {
     public static final Blender DEFAULT = new Blender(false, 770, 1, 32774, 0, 0, false, false, false, true);
@@ -41,7 +42,11 @@ public class Blender {
     private final boolean blueAlphaEnabled;
     private final boolean alphaEnabled;
 
-    private final Consumer<Float> blendFunc;
+    private final boolean valid;
+    /**
+     * Scratch vector of {@link #applyBlendFunc(float)}, only used on the render thread.
+     */
+    private final Vector4f color = new Vector4f();
 
     public Blender(boolean separateFunction, int sourceFactor, int destinationFactor, int equation, int sourceFactorAlpha, int destinationFactorAlpha, boolean redAlphaEnabled, boolean greenAlphaEnabled, boolean blueAlphaEnabled, boolean alphaEnabled) {
         this.separateFunction = separateFunction;
@@ -55,29 +60,45 @@ public class Blender {
         this.blueAlphaEnabled = blueAlphaEnabled;
         this.alphaEnabled = alphaEnabled;
 
-        if ((this.separateFunction && this.isValidFactor(sourceFactor) && this.isValidFactor(destinationFactor) && this.isValidFactor(sourceFactorAlpha) && this.isValidFactor(destinationFactorAlpha) && this.isValidEquation(equation)) || (this.isValidFactor(sourceFactor) && this.isValidFactor(destinationFactor) && this.isValidEquation(equation))) {
-            this.blendFunc = (alpha) -> {
-                if (this.separateFunction) {
-                    RenderSystem.blendFuncSeparate(this.sourceFactor, this.destinationFactor, this.sourceFactorAlpha, this.destinationFactorAlpha);
-                } else {
-                    RenderSystem.blendFunc(this.sourceFactor, this.destinationFactor);
-                }
-                RenderSystem.blendEquation(this.equation);
-                RenderSystem.setShaderColor(this.redAlphaEnabled ? alpha : 1.0F, this.greenAlphaEnabled ? alpha : 1.0F, this.blueAlphaEnabled ? alpha : 1.0F, this.alphaEnabled ? alpha : 1.0F);
-            };
+        this.valid = (this.separateFunction && this.isValidFactor(sourceFactor) && this.isValidFactor(destinationFactor) && this.isValidFactor(sourceFactorAlpha) && this.isValidFactor(destinationFactorAlpha) && this.isValidEquation(equation)) || (this.isValidFactor(sourceFactor) && this.isValidFactor(destinationFactor) && this.isValidEquation(equation));
+        if (!this.valid && FabricSkyBoxesClient.config().generalSettings.debugMode) {
+            FabricSkyBoxesClient.getLogger().error("Invalid custom blender values!");
+        }
+    }
+
+    public void applyBlendFunc(float alpha) {
+        this.applyBlendState();
+        Vector4f color = this.getShaderColor(alpha, this.color);
+        SkyRenderState.getInstance().shaderColor(color.x(), color.y(), color.z(), color.w());
+    }
+
+    /**
+     * Applies the blend function and equation, without the alpha dependent shader color.
+     */
+    public void applyBlendState() {
+        SkyRenderState state = SkyRenderState.getInstance();
+        if (!this.valid) {
+            state.defaultBlendFunc();
         } else {
-            if (FabricSkyBoxesClient.config().generalSettings.debugMode) {
-                FabricSkyBoxesClient.getLogger().error("Invalid custom blender values!");
+            if (this.separateFunction) {
+                state.blendFuncSeparate(this.sourceFactor, this.destinationFactor, this.sourceFactorAlpha, this.destinationFactorAlpha);
+            } else {
+                state.blendFunc(this.sourceFactor, this.destinationFactor);
             }
-            this.blendFunc = (alpha) -> {
-                RenderSystem.defaultBlendFunc();
-                RenderSystem.setShaderColor(1.0F, 1.0F, 1.0F, alpha);
-            };
+            state.blendEquation(this.equation);
         }
     }
 
-    public void applyBlendFunc(float alpha) {
-        this.blendFunc.accept(alpha);
+    /**
+     * @param alpha The alpha of the skybox
+     * @param dest  Will hold the shader color that belongs to the alpha
+     * @return dest
+     */
+    public Vector4f getShaderColor(float alpha, Vector4f dest) {
+        if (!this.valid) {
+            return dest.set(1.0F, 1.0F, 1.0F, alpha);
+        }
+        return dest.set(this.redAlphaEnabled ? alpha : 1.0F, this.greenAlphaEnabled ? alpha : 1.0F, this.blueAlphaEnabled ? alpha : 1.0F, this.alphaEnabled ? alpha : 1.0F);
     }
 
     public boolean isSeparateFunction() {
@@ -120,6 +141,16 @@ public class Blender {
         return alphaEnabled;
     }
 
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Blender blender && this.separateFunction == blender.separateFunction && this.sourceFactor == blender.sourceFactor && this.destinationFactor == blender.destinationFactor && this.equation == blender.equation && this.sourceFactorAlpha == blender.sourceFactorAlpha && this.destinationFactorAlpha == blender.destinationFactorAlpha && this.redAlphaEnabled == blender.redAlphaEnabled && this.greenAlphaEnabled == blender.greenAlphaEnabled && this.blueAlphaEnabled == blender.blueAlphaEnabled && this.alphaEnabled == blender.alphaEnabled;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.separateFunction, this.sourceFactor, this.destinationFactor, this.equation, this.sourceFactorAlpha, this.destinationFactorAlpha, this.redAlphaEnabled, this.greenAlphaEnabled, this.blueAlphaEnabled, this.alphaEnabled);
+    }
+
     public boolean isValidFactor(int factor) {
         return Arrays.stream(GlStateManager.SrcFactor.values()).filter(factor1 -> factor == factor1.value).count() == 1;
     }
@@ -5,6 +5,7 @@ import com.google.common.collect.Lists;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import io.github.amerebagatelle.fabricskyboxes.skyboxes.AbstractSkybox;
+import io.github.amerebagatelle.fabricskyboxes.util.object.internal.CompiledConditions;
 import net.minecraft.util.Identifier;
 
 import java.util.Collection;
@@ -32,6 +33,7 @@ public class Conditions {
     private final List<MinMaxEntry> zRanges;
     private final List<MinMaxEntry> xRanges;
     private final Loop loop;
+    private final CompiledConditions compiled;
 
     public Conditions(List<Identifier> biomes, List<Identifier> worlds, List<Identifier> dimensions, List<Identifier> effects, List<Weather> weathers, List<MinMaxEntry> xRanges, List<MinMaxEntry> yRanges, List<MinMaxEntry> zRanges, Loop loop) {
         this.biomes = biomes;
@@ -43,7 +45,9 @@ public class Conditions {
         this.yRanges = yRanges;
         this.zRanges = zRanges;
         this.loop = loop;
+        this.compiled = new CompiledConditions(this);
     }
+
     public List<Identifier> getBiomes() {
         return this.biomes;
     }
@@ -80,6 +84,13 @@ public class Conditions {
         return this.loop;
     }
 
+    /**
+     * @return The compiled form of these conditions that is used for evaluating them
+     */
+    public CompiledConditions getCompiled() {
+        return this.compiled;
+    }
+
     public static class Builder {
         private final List<Identifier> biomes = Lists.newArrayList();
         private final List<Identifier> worlds = Lists.newArrayList();
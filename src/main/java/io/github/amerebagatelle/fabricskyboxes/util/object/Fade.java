@@ -3,6 +3,7 @@ package io.github.amerebagatelle.fabricskyboxes.util.object;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import io.github.amerebagatelle.fabricskyboxes.util.Utils;
+import io.github.amerebagatelle.fabricskyboxes.util.object.internal.FadeCurve;
 
 public class Fade {
     public static final Fade DEFAULT = new Fade(0, 0, 0, 0, false);
@@ -18,6 +19,7 @@ public class Fade {
     private final int startFadeOut;
     private final int endFadeOut;
     private final boolean alwaysOn;
+    private final FadeCurve curve;
 
     public Fade(int startFadeIn, int endFadeIn, int startFadeOut, int endFadeOut, boolean alwaysOn) {
         this.startFadeIn = normalizeAndWarnIfDifferent(startFadeIn, alwaysOn);
@@ -25,6 +27,7 @@ public class Fade {
         this.startFadeOut = normalizeAndWarnIfDifferent(startFadeOut, alwaysOn);
         this.endFadeOut = normalizeAndWarnIfDifferent(endFadeOut, alwaysOn);
         this.alwaysOn = alwaysOn;
+        this.curve = alwaysOn ? null : FadeCurve.of(this.startFadeIn, this.endFadeIn, this.startFadeOut, this.endFadeOut);
     }
 
     private static int normalizeAndWarnIfDifferent(int time, boolean ignore) {
@@ -54,4 +57,11 @@ public class Fade {
     public boolean isAlwaysOn() {
         return alwaysOn;
     }
-}
\ No newline at end of file
+
+    /**
+     * @return The precomputed fade alpha over a day, null if the fade is always on
+     */
+    public FadeCurve getCurve() {
+        return this.curve;
+    }
+}
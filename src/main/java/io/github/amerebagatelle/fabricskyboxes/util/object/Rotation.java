@@ -4,6 +4,11 @@ import com.google.common.collect.ImmutableList;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.DataResult;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
+import io.github.amerebagatelle.fabricskyboxes.util.Utils;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.dimension.DimensionType;
+import org.joml.Quaternionf;
 import org.joml.Vector3f;
 import org.joml.Vector3i;
 
@@ -39,6 +44,19 @@ public class Rotation {
     private final float rotationSpeedY;
     private final float rotationSpeedZ;
 
+    /**
+     * The axis rotation and the static rotation, which do not change over time.
+     */
+    private final Quaternionf axisQuaternion;
+    private final Quaternionf inverseAxisQuaternion;
+    private final Quaternionf staticQuaternion;
+    /**
+     * The composed rotation, cached for the time of day and dimension it was computed for.
+     */
+    private final Quaternionf quaternion = new Quaternionf();
+    private long cachedTimeOfDay = Long.MIN_VALUE;
+    private DimensionType cachedDimension;
+
     public Rotation(boolean skyboxRotation, Vector3f staticRot, Vector3f axisRot, Vector3i timeShift, float rotationSpeedX, float rotationSpeedY, float rotationSpeedZ) {
         this.skyboxRotation = skyboxRotation;
         this.staticRot = staticRot;
@@ -47,6 +65,50 @@ public class Rotation {
         this.rotationSpeedX = rotationSpeedX;
         this.rotationSpeedY = rotationSpeedY;
         this.rotationSpeedZ = rotationSpeedZ;
+        this.axisQuaternion = new Quaternionf().rotationXYZ(axisRot.x() * MathHelper.RADIANS_PER_DEGREE, axisRot.y() * MathHelper.RADIANS_PER_DEGREE, axisRot.z() * MathHelper.RADIANS_PER_DEGREE);
+        this.inverseAxisQuaternion = this.axisQuaternion.conjugate(new Quaternionf());
+        this.staticQuaternion = new Quaternionf().rotationXYZ(staticRot.x() * MathHelper.RADIANS_PER_DEGREE, staticRot.y() * MathHelper.RADIANS_PER_DEGREE, staticRot.z() * MathHelper.RADIANS_PER_DEGREE);
+    }
+
+    /**
+     * The time rotation around the rotated axis followed by the static rotation, as one quaternion.
+     * It only changes with the time of day, so it is recomputed at most once per tick.
+     *
+     * @param world The world whose time of day the rotation follows
+     * @return The rotation, shared and only valid until the next call
+     */
+    public Quaternionf getQuaternion(ClientWorld world) {
+        long timeOfDay = world.getTimeOfDay();
+        if (timeOfDay != this.cachedTimeOfDay || world.getDimension() != this.cachedDimension) {
+            this.cachedTimeOfDay = timeOfDay;
+            this.cachedDimension = world.getDimension();
+            float timeRotationX = (float) Utils.calculateRotation(this.rotationSpeedX, this.timeShift.x(), this.skyboxRotation, world);
+            float timeRotationY = (float) Utils.calculateRotation(this.rotationSpeedY, this.timeShift.y(), this.skyboxRotation, world);
+            float timeRotationZ = (float) Utils.calculateRotation(this.rotationSpeedZ, this.timeShift.z(), this.skyboxRotation, world);
+            this.compose(timeRotationX, timeRotationY, timeRotationZ, this.quaternion);
+        }
+        return this.quaternion;
+    }
+
+    /**
+     * @param timeRotationX The time rotation around x in degrees
+     * @param timeRotationY The time rotation around y in degrees
+     * @param timeRotationZ The time rotation around z in degrees
+     * @param dest          Will hold the composed rotation
+     * @return dest
+     */
+    public Quaternionf compose(float timeRotationX, float timeRotationY, float timeRotationZ, Quaternionf dest) {
+        return dest.set(this.axisQuaternion)
+                .rotateXYZ(timeRotationX * MathHelper.RADIANS_PER_DEGREE, timeRotationY * MathHelper.RADIANS_PER_DEGREE, timeRotationZ * MathHelper.RADIANS_PER_DEGREE)
+                .mul(this.inverseAxisQuaternion)
+                .mul(this.staticQuaternion);
+    }
+
+    /**
+     * @return Whether the rotation does not follow the time of day
+     */
+    public boolean isTimeInvariant() {
+        return this.rotationSpeedX == 0F && this.rotationSpeedY == 0F && this.rotationSpeedZ == 0F;
     }
 
     public boolean getSkyboxRotation() {
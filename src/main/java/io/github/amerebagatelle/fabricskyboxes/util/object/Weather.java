@@ -34,6 +34,13 @@ public enum Weather {
         return Objects.requireNonNull(VALUES.get(name));
     }
 
+    /**
+     * @return The bit of this weather in a weather mask
+     */
+    public int getMask() {
+        return 1 << this.ordinal();
+    }
+
     @Override
     public String toString() {
         return this.name;
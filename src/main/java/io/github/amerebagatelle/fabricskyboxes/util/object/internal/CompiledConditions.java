@@ -0,0 +1,89 @@
+package io.github.amerebagatelle.fabricskyboxes.util.object.internal;
+
+import io.github.amerebagatelle.fabricskyboxes.util.object.Conditions;
+import io.github.amerebagatelle.fabricskyboxes.util.object.Weather;
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ObjectSet;
+import net.minecraft.util.Identifier;
+
+import java.util.List;
+
+/**
+ * Lookup-friendly form of {@link Conditions}, built once when the conditions are created.
+ * <p>
+ * Identifier lists become hash sets, weathers a bitmask of {@link Weather#getMask()} and
+ * ranges sorted disjoint intervals, so evaluating them does not allocate.
+ */
+public final class CompiledConditions {
+    private final ObjectSet<Identifier> biomes;
+    private final ObjectSet<Identifier> worlds;
+    private final ObjectSet<Identifier> dimensions;
+    private final Identifier[] effects;
+    private final int weatherMask;
+    private final CompiledRanges xRanges;
+    private final CompiledRanges yRanges;
+    private final CompiledRanges zRanges;
+    private final CompiledRanges loopRanges;
+
+    public CompiledConditions(Conditions conditions) {
+        this.biomes = new ObjectOpenHashSet<>(conditions.getBiomes());
+        this.worlds = new ObjectOpenHashSet<>(conditions.getWorlds());
+        this.dimensions = new ObjectOpenHashSet<>(conditions.getDimensions());
+        this.effects = new ObjectOpenHashSet<>(conditions.getEffects()).toArray(new Identifier[0]);
+        this.weatherMask = getWeatherMask(conditions.getWeathers());
+        this.xRanges = CompiledRanges.of(conditions.getXRanges());
+        this.yRanges = CompiledRanges.of(conditions.getYRanges());
+        this.zRanges = CompiledRanges.of(conditions.getZRanges());
+        this.loopRanges = CompiledRanges.of(conditions.getLoop().getRanges());
+    }
+
+    private static int getWeatherMask(List<Weather> weathers) {
+        int mask = 0;
+        for (Weather weather : weathers) {
+            mask |= weather.getMask();
+        }
+        return mask;
+    }
+
+    public ObjectSet<Identifier> getBiomes() {
+        return this.biomes;
+    }
+
+    public ObjectSet<Identifier> getWorlds() {
+        return this.worlds;
+    }
+
+    public ObjectSet<Identifier> getDimensions() {
+        return this.dimensions;
+    }
+
+    /**
+     * @return The distinct effect ids, do not modify
+     */
+    public Identifier[] getEffects() {
+        return this.effects;
+    }
+
+    /**
+     * @return The mask of the accepted weathers, 0 if any weather is accepted
+     */
+    public int getWeatherMask() {
+        return this.weatherMask;
+    }
+
+    public CompiledRanges getXRanges() {
+        return this.xRanges;
+    }
+
+    public CompiledRanges getYRanges() {
+        return this.yRanges;
+    }
+
+    public CompiledRanges getZRanges() {
+        return this.zRanges;
+    }
+
+    public CompiledRanges getLoopRanges() {
+        return this.loopRanges;
+    }
+}
@@ -0,0 +1,83 @@
+package io.github.amerebagatelle.fabricskyboxes.util.object.internal;
+
+import io.github.amerebagatelle.fabricskyboxes.util.object.MinMaxEntry;
+import it.unimi.dsi.fastutil.floats.FloatArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Union of closed float ranges, merged into sorted disjoint intervals for binary search.
+ */
+public final class CompiledRanges {
+    public static final CompiledRanges EMPTY = new CompiledRanges(new float[0], new float[0]);
+
+    private final float[] mins;
+    private final float[] maxs;
+
+    private CompiledRanges(float[] mins, float[] maxs) {
+        this.mins = mins;
+        this.maxs = maxs;
+    }
+
+    public static CompiledRanges of(List<MinMaxEntry> ranges) {
+        if (ranges.isEmpty()) {
+            return EMPTY;
+        }
+        List<MinMaxEntry> sorted = new ObjectArrayList<>(ranges.size());
+        for (MinMaxEntry range : ranges) {
+            // A range with its minimum above its maximum contains nothing
+            if (Float.compare(range.getMin(), range.getMax()) <= 0) {
+                sorted.add(range);
+            }
+        }
+        sorted.sort(Comparator.comparing(MinMaxEntry::getMin, Float::compare));
+
+        FloatArrayList mins = new FloatArrayList();
+        FloatArrayList maxs = new FloatArrayList();
+        for (MinMaxEntry range : sorted) {
+            int last = maxs.size() - 1;
+            if (last >= 0 && Float.compare(range.getMin(), maxs.getFloat(last)) <= 0) {
+                if (Float.compare(range.getMax(), maxs.getFloat(last)) > 0) {
+                    maxs.set(last, range.getMax());
+                }
+            } else {
+                mins.add(range.getMin());
+                maxs.add(range.getMax());
+            }
+        }
+        // Keep the ranges non-empty even if none of them is valid, an empty list means no restriction
+        return new CompiledRanges(mins.isEmpty() ? new float[]{1F} : mins.toFloatArray(), maxs.isEmpty() ? new float[]{0F} : maxs.toFloatArray());
+    }
+
+    /**
+     * @return Whether there are no ranges, in which case every value is accepted
+     */
+    public boolean isEmpty() {
+        return this.mins.length == 0;
+    }
+
+    /**
+     * @param value The value, compared as a float like the original ranges
+     * @return Whether any range contains the value, true if there are no ranges
+     */
+    public boolean contains(double value) {
+        if (this.mins.length == 0) {
+            return true;
+        }
+        float floatValue = (float) value;
+        // Find the last interval starting at or below the value
+        int low = 0;
+        int high = this.mins.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Float.compare(this.mins[middle], floatValue) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low > 0 && Float.compare(floatValue, this.maxs[low - 1]) <= 0;
+    }
+}
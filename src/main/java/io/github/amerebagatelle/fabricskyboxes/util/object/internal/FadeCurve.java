@@ -0,0 +1,113 @@
+package io.github.amerebagatelle.fabricskyboxes.util.object.internal;
+
+import io.github.amerebagatelle.fabricskyboxes.util.Utils;
+import io.github.amerebagatelle.fabricskyboxes.util.object.Fade;
+import it.unimi.dsi.fastutil.bytes.ByteArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precomputed fade alpha of a {@link Fade} over a whole day.
+ * <p>
+ * The day is split into segments that are either fully visible, fully hidden, fading in or fading out.
+ * Ramps are evaluated with the exact same arithmetic as {@link Utils#calculateFadeAlphaValue}, so the
+ * results are identical. Curves are shared between all fades with the same key times.
+ */
+public final class FadeCurve {
+    private static final byte MAX = 0;
+    private static final byte FADE_IN = 1;
+    private static final byte FADE_OUT = 2;
+    private static final byte MIN = 3;
+    private static final Map<Long, FadeCurve> CACHE = new ConcurrentHashMap<>();
+
+    private final int startFadeIn;
+    private final int fadeInDuration;
+    private final int startFadeOut;
+    private final int fadeOutDuration;
+    /**
+     * First tick of every segment, the first segment always starts at 0.
+     */
+    private final int[] segmentStarts;
+    private final byte[] segmentKinds;
+
+    private FadeCurve(int startFadeIn, int endFadeIn, int startFadeOut, int endFadeOut) {
+        this.startFadeIn = startFadeIn;
+        this.fadeInDuration = Utils.calculateCyclicTimeDistance(startFadeIn, endFadeIn);
+        this.startFadeOut = startFadeOut;
+        this.fadeOutDuration = Utils.calculateCyclicTimeDistance(startFadeOut, endFadeOut);
+
+        IntArrayList starts = new IntArrayList();
+        ByteArrayList kinds = new ByteArrayList();
+        for (int time = 0; time < 24000; time++) {
+            byte kind = classify(time, startFadeIn, endFadeIn, startFadeOut, endFadeOut);
+            if (kinds.isEmpty() || kinds.getByte(kinds.size() - 1) != kind) {
+                starts.add(time);
+                kinds.add(kind);
+            }
+        }
+        this.segmentStarts = starts.toIntArray();
+        this.segmentKinds = kinds.toByteArray();
+    }
+
+    /**
+     * Returns the shared curve for the given key times, which are expected to be normalized.
+     */
+    public static FadeCurve of(int startFadeIn, int endFadeIn, int startFadeOut, int endFadeOut) {
+        long key = ((long) startFadeIn << 48) | ((long) endFadeIn << 32) | ((long) startFadeOut << 16) | endFadeOut;
+        return CACHE.computeIfAbsent(key, k -> new FadeCurve(startFadeIn, endFadeIn, startFadeOut, endFadeOut));
+    }
+
+    /**
+     * Same branch order as {@link Utils#calculateFadeAlphaValue}.
+     */
+    private static byte classify(int time, int startFadeIn, int endFadeIn, int startFadeOut, int endFadeOut) {
+        if (Utils.isInTimeInterval(time, endFadeIn, startFadeOut)) {
+            return MAX;
+        } else if (Utils.isInTimeInterval(time, startFadeIn, endFadeIn)) {
+            return FADE_IN;
+        } else if (Utils.isInTimeInterval(time, startFadeOut, endFadeOut)) {
+            return FADE_OUT;
+        } else {
+            return MIN;
+        }
+    }
+
+    /**
+     * @param timeOfDay The world time, any value is accepted
+     * @return The fade alpha between 0 and 1
+     */
+    public float getAlpha(long timeOfDay) {
+        int time = Utils.normalizeTickTime(timeOfDay);
+        return switch (this.segmentKinds[this.findSegment(time)]) {
+            case MAX -> 1f;
+            case FADE_IN -> 0f + ((float) Utils.calculateCyclicTimeDistance(this.startFadeIn, time) / this.fadeInDuration) * (1f - 0f);
+            case FADE_OUT -> 1f + ((float) Utils.calculateCyclicTimeDistance(this.startFadeOut, time) / this.fadeOutDuration) * (0f - 1f);
+            default -> 0f;
+        };
+    }
+
+    /**
+     * @param timeOfDay The world time, any value is accepted
+     * @return The amount of ticks the fade alpha stays the same from the given time on, 0 while fading
+     */
+    public int getConstantFor(long timeOfDay) {
+        int time = Utils.normalizeTickTime(timeOfDay);
+        int segment = this.findSegment(time);
+        byte kind = this.segmentKinds[segment];
+        if (kind == FADE_IN || kind == FADE_OUT) {
+            return 0;
+        }
+        // Ending at the next segment or at the end of the day may wake a little early, which is harmless
+        int end = segment + 1 < this.segmentStarts.length ? this.segmentStarts[segment + 1] : 24000;
+        return end - time;
+    }
+
+    private int findSegment(int time) {
+        // There are at most a handful of segments, so this is effectively constant time
+        int index = Arrays.binarySearch(this.segmentStarts, time);
+        return index >= 0 ? index : -index - 2;
+    }
+}
@@ -0,0 +1,151 @@
+package io.github.amerebagatelle.fabricskyboxes.tests;
+
+import io.github.amerebagatelle.fabricskyboxes.skyboxes.MonoColorSkybox;
+import io.github.amerebagatelle.fabricskyboxes.util.ConditionStats;
+import io.github.amerebagatelle.fabricskyboxes.util.ConditionType;
+import io.github.amerebagatelle.fabricskyboxes.util.SkyContext;
+import io.github.amerebagatelle.fabricskyboxes.util.object.*;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.client.render.CameraSubmersionType;
+import net.minecraft.util.Identifier;
+import net.minecraft.world.biome.Biome;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+
+public class ConditionsTest {
+
+    @Test
+    public void init() {
+        Properties props = Fixtures.alwaysOn(1);
+        Conditions conditions = new Conditions.Builder()
+                .biomes(new Identifier("minecraft:snowy_plains"))
+                .weather(Weather.SNOW)
+                .yRanges(new MinMaxEntry(40, 120))
+                .build();
+        MonoColorSkybox skybox = new MonoColorSkybox(props, conditions, Decorations.DEFAULT, RGBA.DEFAULT, Blend.DEFAULT);
+
+        SkyContext matching = new SkyContext.Builder()
+                .biome(new Identifier("minecraft:snowy_plains"), 1)
+                .precipitation(Biome.Precipitation.SNOW)
+                .raining(true)
+                .position(0, 64, 0)
+                .build();
+        assert skybox.updateAlpha(matching) == 1f;
+
+        SkyContext wrongBiome = new SkyContext.Builder()
+                .biome(new Identifier("minecraft:desert"), 2)
+                .precipitation(Biome.Precipitation.NONE)
+                .raining(true)
+                .position(0, 64, 0)
+                .build();
+        assert skybox.updateAlpha(wrongBiome) == 0f;
+
+        SkyContext tooHigh = new SkyContext.Builder()
+                .biome(new Identifier("minecraft:snowy_plains"), 1)
+                .precipitation(Biome.Precipitation.SNOW)
+                .raining(true)
+                .position(0, 200, 0)
+                .build();
+        assert skybox.updateAlpha(matching) == 1f;
+        assert skybox.updateAlpha(tooHigh) == 0f;
+
+        // checks whose inputs did not change reuse their cached results
+        assert skybox.updateAlpha(matching) == 1f;
+        assert skybox.updateAlpha(wrongBiome.withChanges(SkyContext.POSITION_Y)) == 1f;
+        assert skybox.updateAlpha(wrongBiome.withChanges(SkyContext.BIOME)) == 0f;
+
+        // vanilla effect checks apply when no effects are configured
+        MonoColorSkybox unconditional = new MonoColorSkybox(props, Conditions.DEFAULT, Decorations.DEFAULT, RGBA.DEFAULT, Blend.DEFAULT);
+        assert unconditional.updateAlpha(new SkyContext.Builder().thickFog(true).build()) == 1f;
+        assert unconditional.updateAlpha(new SkyContext.Builder().effects(new Identifier("minecraft:blindness")).build()) == 0f;
+        assert unconditional.updateAlpha(new SkyContext.Builder().build()) == 1f;
+        assert unconditional.updateAlpha(new SkyContext.Builder().submersionType(CameraSubmersionType.LAVA).build()) == 0f;
+    }
+
+    @Test
+    public void rawIds() {
+        Properties props = Fixtures.alwaysOn(1);
+        Conditions conditions = new Conditions.Builder()
+                .biomes(new Identifier("minecraft:snowy_plains"), new Identifier("minecraft:ice_spikes"))
+                .effects(List.of(new Identifier("minecraft:nausea")))
+                .build();
+        Object2IntMap<Identifier> biomeRawIds = new Object2IntOpenHashMap<>();
+        biomeRawIds.defaultReturnValue(-1);
+        biomeRawIds.put(new Identifier("minecraft:snowy_plains"), 1);
+        biomeRawIds.put(new Identifier("minecraft:ice_spikes"), 3);
+        Object2IntMap<Identifier> effectRawIds = new Object2IntOpenHashMap<>();
+        effectRawIds.defaultReturnValue(-1);
+        effectRawIds.put(new Identifier("minecraft:nausea"), 9);
+
+        SkyContext[] contexts = {
+                new SkyContext.Builder().biome(new Identifier("minecraft:snowy_plains"), 1).build(),
+                new SkyContext.Builder().biome(new Identifier("minecraft:ice_spikes"), 3).build(),
+                new SkyContext.Builder().biome(new Identifier("minecraft:desert"), 2).build(),
+                new SkyContext.Builder().biome(new Identifier("minecraft:snowy_plains"), 1).effects(new Identifier("minecraft:nausea")).effectRawIds(9).build(),
+                new SkyContext.Builder().biome(new Identifier("minecraft:snowy_plains"), 1).effects(new Identifier("minecraft:speed")).effectRawIds(1).build()
+        };
+        float[] expected = {1f, 1f, 0f, 0f, 1f};
+        for (int i = 0; i < contexts.length; i++) {
+            // ids are compared until the raw ids are resolved, both must agree
+            MonoColorSkybox byId = new MonoColorSkybox(props, conditions, Decorations.DEFAULT, RGBA.DEFAULT, Blend.DEFAULT);
+            MonoColorSkybox byRawId = new MonoColorSkybox(props, conditions, Decorations.DEFAULT, RGBA.DEFAULT, Blend.DEFAULT);
+            assert byRawId.resolveConditions(biomeRawIds::getInt, effectRawIds::getInt).isEmpty();
+            assert byId.updateAlpha(contexts[i]) == expected[i] : "Context " + i;
+            assert byRawId.updateAlpha(contexts[i]) == expected[i] : "Context " + i;
+        }
+
+        BitSet nausea = new BitSet();
+        nausea.set(9);
+        assert contexts[3].hasAnyEffect(nausea);
+        assert !contexts[4].hasAnyEffect(nausea);
+        assert !contexts[0].hasAnyEffect(nausea);
+
+        // ids missing from the registries are reported
+        MonoColorSkybox unresolved = new MonoColorSkybox(props, conditions, Decorations.DEFAULT, RGBA.DEFAULT, Blend.DEFAULT);
+        assert unresolved.resolveConditions(id -> -1, id -> -1).size() == 3;
+    }
+
+    @Test
+    public void conditionRanking() {
+        // Local statistics, the global ones are fed by every test that evaluates conditions
+        ConditionStats stats = new ConditionStats();
+        for (int i = 0; i < 100; i++) {
+            stats.recordSample(ConditionType.LOOP, i % 10 != 0, 500);
+            stats.recordSample(ConditionType.BIOMES, i % 2 != 0, 50);
+            stats.recordSample(ConditionType.DIMENSIONS, true, 20);
+        }
+        for (int i = 0; i < 200; i++) {
+            stats.tick();
+        }
+        // cheap and selective checks run first, expensive checks that rarely reject run last
+        List<ConditionType> ranking = List.of(stats.getRanking());
+        assert ranking.get(0) == ConditionType.BIOMES;
+        assert ranking.indexOf(ConditionType.DIMENSIONS) < ranking.indexOf(ConditionType.LOOP);
+    }
+
+    @Test
+    public void settledUntil() {
+        Properties props = Fixtures.alwaysOn(1);
+        Conditions conditions = new Conditions.Builder()
+                .yRanges(new MinMaxEntry(40, 120))
+                .loop(new Loop(2, List.of(new MinMaxEntry(0.5F, 1.5F))))
+                .build();
+        MonoColorSkybox skybox = new MonoColorSkybox(props, conditions, Decorations.DEFAULT, RGBA.DEFAULT, Blend.DEFAULT);
+        assert (skybox.getDependencies() & SkyContext.POSITION) != 0;
+        assert (skybox.getDependencies() & SkyContext.BIOME) == 0;
+
+        // settled inside the loop range until the range ends at day 1.5
+        SkyContext context = new SkyContext.Builder().timeOfDay(20000).position(0, 64, 0).build();
+        assert skybox.updateAlpha(context) == 1f;
+        long settledUntil = skybox.getSettledUntil(context);
+        assert settledUntil > 20000 && settledUntil <= 36001;
+
+        // faded out within a single tick, settled until the next loop boundary as well
+        SkyContext outside = new SkyContext.Builder().timeOfDay(20001).position(0, 200, 0).build();
+        assert skybox.updateAlpha(outside) == 0f;
+        assert skybox.getSettledUntil(outside) == settledUntil;
+    }
+}
@@ -0,0 +1,63 @@
+package io.github.amerebagatelle.fabricskyboxes.tests;
+
+import io.github.amerebagatelle.fabricskyboxes.util.Utils;
+import io.github.amerebagatelle.fabricskyboxes.util.object.internal.FadeCurve;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+public class FadeCurveTest {
+    private static final int[][] FADES = {
+            {12000, 14000, 16000, 18000},
+            {18000, 20000, 4000, 6000},
+            {21667, 167, 11500, 14000},
+            {0, 0, 0, 0},
+            {1000, 1000, 5000, 5000},
+            {23999, 0, 12000, 12001},
+            {6000, 5000, 7000, 4000},
+            {0, 23999, 23999, 0}
+    };
+
+    @Test
+    public void init() {
+        for (int[] fade : FADES) {
+            FadeCurve curve = FadeCurve.of(fade[0], fade[1], fade[2], fade[3]);
+            assert curve == FadeCurve.of(fade[0], fade[1], fade[2], fade[3]);
+            for (int time = 0; time < 24000; time++) {
+                float expected = Utils.calculateFadeAlphaValue(1f, 0f, time, fade[0], fade[1], fade[2], fade[3]);
+                assert Float.floatToIntBits(curve.getAlpha(time)) == Float.floatToIntBits(expected) : "Mismatch at " + time;
+                // the alpha must not change while the curve reports it as constant
+                int constantFor = curve.getConstantFor(time);
+                if (constantFor > 0) {
+                    assert expected == 0f || expected == 1f;
+                    assert Utils.calculateFadeAlphaValue(1f, 0f, (time + constantFor - 1) % 24000, fade[0], fade[1], fade[2], fade[3]) == expected;
+                }
+            }
+            assert curve.getAlpha(-1) == curve.getAlpha(23999);
+            assert curve.getAlpha(24000 * 3 + 5) == curve.getAlpha(5);
+        }
+    }
+
+    @Tag("benchmark")
+    @Test
+    public void lookupBenchmark() {
+        int[] fade = FADES[2];
+        FadeCurve curve = FadeCurve.of(fade[0], fade[1], fade[2], fade[3]);
+        int iterations = 20_000_000;
+        for (int warmup = 0; warmup < 3; warmup++) {
+            float sink = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sink += Utils.calculateFadeAlphaValue(1f, 0f, i % 24000, fade[0], fade[1], fade[2], fade[3]);
+            }
+            long math = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sink -= curve.getAlpha(i % 24000);
+            }
+            long lookup = System.nanoTime() - start;
+
+            System.out.printf("calculateFadeAlphaValue %6.2f ns/op, FadeCurve %6.2f ns/op (%s)%n", (double) math / iterations, (double) lookup / iterations, sink);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package io.github.amerebagatelle.fabricskyboxes.tests;
+
+import io.github.amerebagatelle.fabricskyboxes.util.object.Fade;
+import io.github.amerebagatelle.fabricskyboxes.util.object.Properties;
+
+/**
+ * Shared test fixtures.
+ */
+final class Fixtures {
+    private Fixtures() {
+    }
+
+    /**
+     * @param transition The transition duration in and out, in ticks
+     * @return Properties of a skybox that is visible all day whenever its conditions match
+     */
+    static Properties alwaysOn(int transition) {
+        return new Properties.Builder()
+                .fade(new Fade(0, 0, 0, 0, true))
+                .transitionInDuration(transition)
+                .transitionOutDuration(transition)
+                .build();
+    }
+}
@@ -0,0 +1,158 @@
+package io.github.amerebagatelle.fabricskyboxes.tests;
+
+import io.github.amerebagatelle.fabricskyboxes.util.SkyboxGeometry;
+import io.github.amerebagatelle.fabricskyboxes.util.object.UVRange;
+import io.github.amerebagatelle.fabricskyboxes.util.object.UVRanges;
+import net.minecraft.client.util.math.MatrixStack;
+import net.minecraft.util.math.RotationAxis;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+public class SkyboxGeometryTest {
+    private static final UVRanges SINGLE_SPRITE = new UVRanges(
+            new UVRange(1.0F / 3.0F, 1.0F / 2.0F, 2.0F / 3.0F, 1),
+            new UVRange(2.0F / 3.0F, 0, 1, 1.0F / 2.0F),
+            new UVRange(2.0F / 3.0F, 1.0F / 2.0F, 1, 1),
+            new UVRange(0, 1.0F / 2.0F, 1.0F / 3.0F, 1),
+            new UVRange(1.0F / 3.0F, 0, 2.0F / 3.0F, 1.0F / 2.0F),
+            new UVRange(0, 0, 1.0F / 3.0F, 1.0F / 2.0F)
+    );
+
+    @Test
+    public void init() {
+        // The baked cube must match the vertices the skyboxes used to build every frame
+        MatrixStack matrices = new MatrixStack();
+        matrices.multiply(RotationAxis.POSITIVE_Y.rotationDegrees(37.0F));
+        float[] expected = buildCube(matrices, SINGLE_SPRITE, new float[24 * SkyboxGeometry.FLOATS_PER_VERTEX]);
+        float[] baked = SkyboxGeometry.bakeCube(SINGLE_SPRITE);
+        assert baked.length == expected.length;
+
+        Matrix4f model = matrices.peek().getPositionMatrix();
+        Vector3f position = new Vector3f();
+        for (int i = 0; i < baked.length; i += SkyboxGeometry.FLOATS_PER_VERTEX) {
+            model.transformPosition(baked[i], baked[i + 1], baked[i + 2], position);
+            assert Math.abs(position.x() - expected[i]) < 1.0E-3F : "Mismatch at vertex " + i / SkyboxGeometry.FLOATS_PER_VERTEX;
+            assert Math.abs(position.y() - expected[i + 1]) < 1.0E-3F : "Mismatch at vertex " + i / SkyboxGeometry.FLOATS_PER_VERTEX;
+            assert Math.abs(position.z() - expected[i + 2]) < 1.0E-3F : "Mismatch at vertex " + i / SkyboxGeometry.FLOATS_PER_VERTEX;
+            assert baked[i + 3] == expected[i + 3] && baked[i + 4] == expected[i + 4];
+        }
+
+        float[] face = SkyboxGeometry.bakeFace(3, SINGLE_SPRITE.byId(3));
+        for (int i = 0; i < face.length; i++) {
+            assert face[i] == baked[3 * 4 * SkyboxGeometry.FLOATS_PER_VERTEX + i];
+        }
+    }
+
+    @Test
+    public void culling() {
+        // Looking along -z with a 100 degree vertical field of view, only the face behind the camera is out of view
+        Matrix4f projection = new Matrix4f().perspective((float) Math.toRadians(100.0D), 16.0F / 9.0F, 0.05F, 512.0F);
+        int culled = 0;
+        for (int face = 0; face < 6; face++) {
+            float[] vertices = SkyboxGeometry.bakeFace(face, SINGLE_SPRITE.byId(face));
+            boolean behind = true;
+            for (int i = 2; i < vertices.length; i += SkyboxGeometry.FLOATS_PER_VERTEX) {
+                behind &= vertices[i] > 0;
+            }
+            assert SkyboxGeometry.isFaceVisible(face, projection) != behind : "Face " + face;
+            if (behind) {
+                culled++;
+            }
+        }
+        assert culled == 1;
+
+        // A rotated skybox moves the culled face along
+        MatrixStack matrices = new MatrixStack();
+        matrices.multiply(RotationAxis.POSITIVE_Y.rotationDegrees(180.0F));
+        Matrix4f rotated = new Matrix4f(projection).mul(matrices.peek().getPositionMatrix());
+        for (int face = 0; face < 6; face++) {
+            float[] vertices = SkyboxGeometry.bakeFace(face, SINGLE_SPRITE.byId(face));
+            boolean front = true;
+            for (int i = 2; i < vertices.length; i += SkyboxGeometry.FLOATS_PER_VERTEX) {
+                front &= vertices[i] < 0;
+            }
+            assert SkyboxGeometry.isFaceVisible(face, rotated) != front : "Face " + face;
+        }
+    }
+
+    @Tag("benchmark")
+    @Test
+    public void renderLoopBenchmark() {
+        // Without a GL context only the CPU side of a frame can be measured, the draw calls are the same for both
+        int skyboxes = 64;
+        int frames = 20_000;
+        float[] vertices = new float[24 * SkyboxGeometry.FLOATS_PER_VERTEX];
+        float[] cached = SkyboxGeometry.bakeCube(SINGLE_SPRITE);
+        for (int warmup = 0; warmup < 3; warmup++) {
+            float sink = 0;
+            long start = System.nanoTime();
+            for (int frame = 0; frame < frames; frame++) {
+                for (int skybox = 0; skybox < skyboxes; skybox++) {
+                    MatrixStack matrices = new MatrixStack();
+                    matrices.multiply(RotationAxis.POSITIVE_Y.rotationDegrees(frame * 0.1F + skybox));
+                    sink += buildCube(matrices, SINGLE_SPRITE, vertices)[skybox];
+                }
+            }
+            long rebuilt = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int frame = 0; frame < frames; frame++) {
+                for (int skybox = 0; skybox < skyboxes; skybox++) {
+                    MatrixStack matrices = new MatrixStack();
+                    matrices.multiply(RotationAxis.POSITIVE_Y.rotationDegrees(frame * 0.1F + skybox));
+                    sink -= matrices.peek().getPositionMatrix().m00() + cached[skybox];
+                }
+            }
+            long reused = System.nanoTime() - start;
+
+            long calls = (long) frames * skyboxes;
+            System.out.printf("rebuilt %8.1f ns/skybox/frame, cached %8.1f ns/skybox/frame (%s)%n", (double) rebuilt / calls, (double) reused / calls, sink);
+        }
+    }
+
+    /**
+     * The per-face transform chain and vertices the cube skyboxes built every frame.
+     */
+    private static float[] buildCube(MatrixStack matrices, UVRanges uvRanges, float[] vertices) {
+        Vector3f position = new Vector3f();
+        int offset = 0;
+        for (int i = 0; i < 6; ++i) {
+            UVRange tex = uvRanges.byId(i);
+            matrices.push();
+
+            if (i == 1) {
+                matrices.multiply(RotationAxis.POSITIVE_X.rotationDegrees(90.0F));
+            } else if (i == 2) {
+                matrices.multiply(RotationAxis.POSITIVE_X.rotationDegrees(-90.0F));
+                matrices.multiply(RotationAxis.POSITIVE_Y.rotationDegrees(180.0F));
+            } else if (i == 3) {
+                matrices.multiply(RotationAxis.POSITIVE_X.rotationDegrees(180.0F));
+            } else if (i == 4) {
+                matrices.multiply(RotationAxis.POSITIVE_Z.rotationDegrees(90.0F));
+                matrices.multiply(RotationAxis.POSITIVE_Y.rotationDegrees(-90.0F));
+            } else if (i == 5) {
+                matrices.multiply(RotationAxis.POSITIVE_Z.rotationDegrees(-90.0F));
+                matrices.multiply(RotationAxis.POSITIVE_Y.rotationDegrees(90.0F));
+            }
+
+            Matrix4f matrix4f = matrices.peek().getPositionMatrix();
+            offset = put(vertices, offset, matrix4f.transformPosition(-100.0F, -100.0F, -100.0F, position), tex.getMinU(), tex.getMinV());
+            offset = put(vertices, offset, matrix4f.transformPosition(-100.0F, -100.0F, 100.0F, position), tex.getMinU(), tex.getMaxV());
+            offset = put(vertices, offset, matrix4f.transformPosition(100.0F, -100.0F, 100.0F, position), tex.getMaxU(), tex.getMaxV());
+            offset = put(vertices, offset, matrix4f.transformPosition(100.0F, -100.0F, -100.0F, position), tex.getMaxU(), tex.getMinV());
+            matrices.pop();
+        }
+        return vertices;
+    }
+
+    private static int put(float[] vertices, int offset, Vector3f position, float u, float v) {
+        vertices[offset] = position.x();
+        vertices[offset + 1] = position.y();
+        vertices[offset + 2] = position.z();
+        vertices[offset + 3] = u;
+        vertices[offset + 4] = v;
+        return offset + 5;
+    }
+}
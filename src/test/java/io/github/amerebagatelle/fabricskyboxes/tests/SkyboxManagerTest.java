@@ -0,0 +1,203 @@
+package io.github.amerebagatelle.fabricskyboxes.tests;
+
+import io.github.amerebagatelle.fabricskyboxes.SkyboxManager;
+import io.github.amerebagatelle.fabricskyboxes.api.skyboxes.Skybox;
+import io.github.amerebagatelle.fabricskyboxes.mixin.skybox.WorldRendererAccess;
+import io.github.amerebagatelle.fabricskyboxes.skyboxes.AbstractSkybox;
+import io.github.amerebagatelle.fabricskyboxes.skyboxes.MonoColorSkybox;
+import io.github.amerebagatelle.fabricskyboxes.util.SkyContext;
+import io.github.amerebagatelle.fabricskyboxes.util.Utils;
+import io.github.amerebagatelle.fabricskyboxes.util.object.*;
+import it.unimi.dsi.fastutil.objects.Object2ObjectLinkedOpenHashMap;
+import net.minecraft.client.render.Camera;
+import net.minecraft.client.util.math.MatrixStack;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.Identifier;
+import org.joml.Matrix4f;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SkyboxManagerTest {
+
+    @Test
+    public void init() {
+        SkyboxManager manager = SkyboxManager.getInstance();
+        manager.clearSkyboxes();
+
+        Map<Identifier, Skybox> skyboxes = createSkyboxes(64);
+        manager.addSkyboxes(skyboxes);
+        List<Skybox> batched = new ArrayList<>(manager.getSkyboxMap().values());
+
+        manager.clearSkyboxes();
+        skyboxes.forEach(manager::addSkybox);
+        List<Skybox> single = new ArrayList<>(manager.getSkyboxMap().values());
+
+        // both paths must result in the same priority-then-load-order ordering
+        assert batched.equals(single);
+        for (int i = 1; i < batched.size(); i++) {
+            PrioritySkybox previous = (PrioritySkybox) batched.get(i - 1);
+            PrioritySkybox current = (PrioritySkybox) batched.get(i);
+            assert previous.priority < current.priority || (previous.priority == current.priority && previous.order < current.order);
+        }
+        manager.clearSkyboxes();
+    }
+
+    @Tag("benchmark")
+    @Test
+    public void registrationBenchmark() {
+        SkyboxManager manager = SkyboxManager.getInstance();
+        for (int count : new int[]{100, 1_000, 10_000}) {
+            Map<Identifier, Skybox> skyboxes = createSkyboxes(count);
+
+            manager.clearSkyboxes();
+            long start = System.nanoTime();
+            skyboxes.forEach(manager::addSkybox);
+            long single = System.nanoTime() - start;
+
+            manager.clearSkyboxes();
+            start = System.nanoTime();
+            manager.addSkyboxes(skyboxes);
+            long batched = System.nanoTime() - start;
+
+            System.out.printf("%,6d skyboxes: addSkybox %,10.2f ms, addSkyboxes %,8.2f ms%n", count, single / 1_000_000D, batched / 1_000_000D);
+        }
+        manager.clearSkyboxes();
+    }
+
+    @Test
+    public void parallelEvaluation() {
+        SkyboxManager manager = SkyboxManager.getInstance();
+        SkyContext context = new SkyContext.Builder().position(0, 64, 0).build();
+
+        manager.clearSkyboxes();
+        manager.setParallelEvaluation(false, 1);
+        manager.addSkyboxes(createConditionalSkyboxes(512, 1));
+        manager.tickSkyboxes(context, null);
+        List<Identifier> sequential = activeIds(manager);
+
+        manager.clearSkyboxes();
+        manager.setParallelEvaluation(true, 1);
+        manager.addSkyboxes(createConditionalSkyboxes(512, 1));
+        manager.tickSkyboxes(context, null);
+        List<Identifier> parallel = activeIds(manager);
+
+        // the merged active set must not depend on the evaluation mode
+        assert !sequential.isEmpty();
+        assert sequential.equals(parallel);
+        manager.setParallelEvaluation(false, 2048);
+        manager.clearSkyboxes();
+    }
+
+    @Test
+    public void positionIndex() {
+        SkyboxManager manager = SkyboxManager.getInstance();
+        manager.clearSkyboxes();
+        Map<Identifier, Skybox> skyboxes = createConditionalSkyboxes(256, 1);
+        manager.addSkyboxes(skyboxes);
+        for (double y : new double[]{64, 64.5, 0, -0.0, 8, 8.01, 127, 135, 136, 200, 64}) {
+            manager.tickSkyboxes(new SkyContext.Builder().position(0, y, 0).build(), null);
+            // the indexed range results must match checking every range directly
+            List<Identifier> expected = new ArrayList<>();
+            skyboxes.forEach((identifier, skybox) -> {
+                if (Utils.checkRanges(y, ((AbstractSkybox) skybox).getConditions().getYRanges())) {
+                    expected.add(identifier);
+                }
+            });
+            assert activeIds(manager).equals(expected) : "Mismatch at y " + y;
+        }
+        manager.clearSkyboxes();
+    }
+
+    @Tag("benchmark")
+    @Test
+    public void parallelEvaluationBenchmark() {
+        SkyboxManager manager = SkyboxManager.getInstance();
+        for (int count : new int[]{100, 500, 1_000, 2_000, 5_000, 10_000, 50_000}) {
+            long[] results = new long[2];
+            for (int mode = 0; mode < 2; mode++) {
+                manager.clearSkyboxes();
+                manager.setParallelEvaluation(mode == 1, 1);
+                // long transitions keep every skybox fading, so none of them becomes dormant
+                manager.addSkyboxes(createConditionalSkyboxes(count, 100_000));
+                int ticks = 200;
+                long start = 0;
+                for (int tick = -50; tick < ticks; tick++) {
+                    if (tick == 0) {
+                        start = System.nanoTime();
+                    }
+                    manager.tickSkyboxes(new SkyContext.Builder().timeOfDay(tick + 50).position(0, 64, 0).build(), null);
+                }
+                results[mode] = (System.nanoTime() - start) / ticks;
+            }
+            System.out.printf("%,6d skyboxes: sequential %,10d ns/tick, parallel %,10d ns/tick%n", count, results[0], results[1]);
+        }
+        manager.setParallelEvaluation(false, 2048);
+        manager.clearSkyboxes();
+    }
+
+    private static List<Identifier> activeIds(SkyboxManager manager) {
+        Map<Skybox, Identifier> identifiers = new IdentityHashMap<>();
+        manager.getSkyboxMap().forEach((identifier, skybox) -> identifiers.put(skybox, identifier));
+        List<Identifier> ids = new ArrayList<>();
+        for (Skybox skybox : manager.getActiveSkyboxes()) {
+            ids.add(identifiers.get(skybox));
+        }
+        return ids;
+    }
+
+    private static Map<Identifier, Skybox> createConditionalSkyboxes(int count, int transitionDuration) {
+        Properties properties = Fixtures.alwaysOn(transitionDuration);
+        Map<Identifier, Skybox> skyboxes = new Object2ObjectLinkedOpenHashMap<>(count);
+        for (int i = 0; i < count; i++) {
+            // roughly half of the skyboxes match a player at y 64
+            Conditions conditions = new Conditions.Builder()
+                    .yRanges(new MinMaxEntry(i % 128, i % 128 + 8))
+                    .biomes(new Identifier("plains"), new Identifier("snowy_plains"))
+                    .build();
+            skyboxes.put(new Identifier("test", "sky/skybox_" + i), new MonoColorSkybox(properties, conditions, Decorations.DEFAULT, RGBA.DEFAULT, Blend.DEFAULT));
+        }
+        return skyboxes;
+    }
+
+    private static Map<Identifier, Skybox> createSkyboxes(int count) {
+        Map<Identifier, Skybox> skyboxes = new Object2ObjectLinkedOpenHashMap<>(count);
+        for (int i = 0; i < count; i++) {
+            // a handful of distinct priorities so that ties have to keep their load order
+            skyboxes.put(new Identifier("test", "sky/skybox_" + i), new PrioritySkybox((i * 7) % 5, i));
+        }
+        return skyboxes;
+    }
+
+    private static class PrioritySkybox implements Skybox {
+        private final int priority;
+        private final int order;
+
+        private PrioritySkybox(int priority, int order) {
+            this.priority = priority;
+            this.order = order;
+        }
+
+        @Override
+        public int getPriority() {
+            return this.priority;
+        }
+
+        @Override
+        public void render(WorldRendererAccess worldRendererAccess, MatrixStack matrixStack, Matrix4f projectionMatrix, float tickDelta, Camera camera, boolean thickFog, Runnable fogCallback) {
+        }
+
+        @Override
+        public void tick(ClientWorld clientWorld) {
+        }
+
+        @Override
+        public boolean isActive() {
+            return false;
+        }
+    }
+}
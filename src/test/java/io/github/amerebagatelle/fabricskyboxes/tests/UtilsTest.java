@@ -1,8 +1,27 @@
 package io.github.amerebagatelle.fabricskyboxes.tests;
 
+import io.github.amerebagatelle.fabricskyboxes.util.AnimationClock;
 import io.github.amerebagatelle.fabricskyboxes.util.Utils;
+import io.github.amerebagatelle.fabricskyboxes.util.object.Animation;
+import io.github.amerebagatelle.fabricskyboxes.util.object.MinMaxEntry;
+import io.github.amerebagatelle.fabricskyboxes.util.object.Rotation;
+import io.github.amerebagatelle.fabricskyboxes.util.object.Texture;
+import io.github.amerebagatelle.fabricskyboxes.util.object.UVRange;
+import io.github.amerebagatelle.fabricskyboxes.util.object.internal.CompiledRanges;
+import net.minecraft.client.util.math.MatrixStack;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.RotationAxis;
+import org.joml.Matrix4f;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+import org.joml.Vector3i;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
 public class UtilsTest {
 
     @Test
@@ -51,4 +70,75 @@ public class UtilsTest {
         result = Utils.calculateFadeAlphaValue(1f, 0f, currentTime, startFadeIn, endFadeIn, startFadeOut, endFadeOut);
         assert result == 0.9328f;
     }
+
+    @Test
+    public void compiledRanges() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            List<MinMaxEntry> ranges = new ArrayList<>();
+            for (int j = random.nextInt(5); j > 0; j--) {
+                float min = random.nextInt(64) - 16;
+                ranges.add(new MinMaxEntry(min, min + random.nextInt(24) - 2));
+            }
+            CompiledRanges compiled = CompiledRanges.of(ranges);
+            for (double value = -20; value <= 80; value += 0.25) {
+                assert compiled.contains(value) == Utils.checkRanges(value, ranges) : ranges + " " + value;
+            }
+        }
+    }
+
+    @Test
+    public void rotation() {
+        // The composed rotation must match the rotations the skyboxes used to apply one by one
+        Rotation rotation = new Rotation(true, new Vector3f(10F, 200F, -35F), new Vector3f(45F, -20F, 90F), new Vector3i(0, 0, 0), 1F, 0.5F, 2F);
+        float timeRotationX = 123F;
+        float timeRotationY = 61.5F;
+        float timeRotationZ = 246F;
+        MatrixStack matrices = new MatrixStack();
+        matrices.multiply(RotationAxis.POSITIVE_X.rotationDegrees(45F));
+        matrices.multiply(RotationAxis.POSITIVE_Y.rotationDegrees(-20F));
+        matrices.multiply(RotationAxis.POSITIVE_Z.rotationDegrees(90F));
+        matrices.multiply(RotationAxis.POSITIVE_X.rotationDegrees(timeRotationX));
+        matrices.multiply(RotationAxis.POSITIVE_Y.rotationDegrees(timeRotationY));
+        matrices.multiply(RotationAxis.POSITIVE_Z.rotationDegrees(timeRotationZ));
+        matrices.multiply(RotationAxis.NEGATIVE_Z.rotationDegrees(90F));
+        matrices.multiply(RotationAxis.NEGATIVE_Y.rotationDegrees(-20F));
+        matrices.multiply(RotationAxis.NEGATIVE_X.rotationDegrees(45F));
+        matrices.multiply(RotationAxis.POSITIVE_X.rotationDegrees(10F));
+        matrices.multiply(RotationAxis.POSITIVE_Y.rotationDegrees(200F));
+        matrices.multiply(RotationAxis.POSITIVE_Z.rotationDegrees(-35F));
+
+        Matrix4f expected = matrices.peek().getPositionMatrix();
+        Matrix4f composed = new Matrix4f().rotation(rotation.compose(timeRotationX, timeRotationY, timeRotationZ, new Quaternionf()));
+        assert expected.equals(composed, 1.0E-5F) : expected + " " + composed;
+
+        // Only rotations that follow the time of day keep a skybox out of the composite
+        assert !rotation.isTimeInvariant();
+        assert new Rotation(true, new Vector3f(10F, 200F, -35F), new Vector3f(45F, -20F, 90F), new Vector3i(0, 0, 0), 0F, 0F, 0F).isTimeInvariant();
+    }
+
+    @Test
+    public void animation() {
+        AnimationClock clock = new AnimationClock();
+        clock.advance(1000L, false);
+        assert clock.getFrameDelta() == 0L;
+        clock.advance(1050L, false);
+        assert clock.getFrameDelta() == 50L && clock.getTime() == 50L;
+        clock.advance(1100L, true);
+        assert clock.getFrameDelta() == 0L && clock.getTime() == 50L;
+
+        // Two columns and rows, the second frame shows for 300 ms instead of 100 ms
+        Animation animation = new Animation(new Texture(new Identifier("fabricskyboxes:test")), new UVRange(0, 0, 1, 1), 2, 2, 100, true, Map.of("2", 300));
+        animation.tick(0L);
+        UVRange second = animation.getCurrentFrame();
+        assert second.getMinU() == 0.0F && second.getMinV() == 0.5F;
+        animation.tick(299L);
+        assert animation.getCurrentFrame() == second;
+        animation.tick(1L);
+        UVRange third = animation.getCurrentFrame();
+        assert third.getMinU() == 0.5F && third.getMinV() == 0.0F;
+        animation.tick(100L);
+        animation.tick(100L);
+        assert animation.getCurrentFrame().getMinU() == 0.0F && animation.getCurrentFrame().getMinV() == 0.0F;
+    }
 }